@@ -15,6 +15,10 @@ public class Main {
 
         TwoPlayerAi twoPlayerAi0 = new TwoPlayerAi(board.deepCopy(), 0, "color 0", ui, depth, MyPositionEvaluator.EVALUATOR_0, 30, false);
         TwoPlayerAi twoPlayerAi1 = new TwoPlayerAi(board.deepCopy(), 1, "color 1", ui, depth, MyPositionEvaluator.EVALUATOR_1, 30, false);
+//        twoPlayerAi0.setLazySmpThreads(Runtime.getRuntime().availableProcessors());
+//        twoPlayerAi1.setLazySmpThreads(Runtime.getRuntime().availableProcessors());
+//        twoPlayerAi0.setPondering(true);
+//        twoPlayerAi1.setPondering(true);
 
         Spectator[] spectators = {
                 new MoveAnalyzer(twoPlayerAi0, twoPlayerAi1)
@@ -23,6 +27,9 @@ public class Main {
         CapableOfPlaying[] players = {
 //                new Player(board , 0, null, ui),
 //                new RandomAi(board, 0, null, ui),
+//                new MctsAi(board, 0, null, ui, 0, 5000),
+//                new MultiPlayerAi(board, 0, null, ui, 2, MyPositionEvaluator.EVALUATOR_0, 30, SearchMode.PARANOID),
+//                new BestReplyAi(board, 0, null, ui, 3, MyPositionEvaluator.EVALUATOR_0, 30),
 //                new Player(board, 0, null, ui),
                 twoPlayerAi0,
                 twoPlayerAi1,
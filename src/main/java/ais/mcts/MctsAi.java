@@ -0,0 +1,223 @@
+package ais.mcts;
+
+import ais.twoplayerai.SearchPool;
+import blokus.Board;
+import blokus.CapableOfPlaying;
+import blokus.Move;
+import uis.UI;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MctsAi implements CapableOfPlaying {
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    private int turn;
+    private Board board;
+    private int color;
+    private final String id;
+    private final UI ui;
+    private int moveCount;
+
+    private final int playoutsPerMove;
+    private final long millisPerMove;
+    private final int threads;
+
+    private Node root;
+    private int lastPlayouts;
+    private long lastMillis;
+
+    /**
+     * Searches until {@code playoutsPerMove} playouts have been run or {@code millisPerMove} has passed,
+     * whichever comes first. A budget of 0 is ignored, but at least one of them has to be set.
+     */
+    public MctsAi(Board board, int color, String id, UI ui, int playoutsPerMove, long millisPerMove) {
+        this(board, color, id, ui, playoutsPerMove, millisPerMove, 1);
+    }
+
+    /**
+     * With more than one thread the extra threads run on the shared search pool and descend the same
+     * tree, spread out by virtual loss.
+     */
+    public MctsAi(Board board, int color, String id, UI ui, int playoutsPerMove, long millisPerMove, int threads) {
+        if (playoutsPerMove <= 0 && millisPerMove <= 0) {
+            throw new RuntimeException("MctsAi needs a playout or a time budget!");
+        }
+
+        this.board = board;
+        this.color = color;
+        this.id = id;
+        this.ui = ui;
+        this.playoutsPerMove = playoutsPerMove;
+        this.millisPerMove = millisPerMove;
+        this.threads = threads;
+        turn = -1;
+        moveCount = -1;
+    }
+
+    @Override
+    public Move getMove() {
+        Board position = board.deepCopy();
+        long hash = position.getHash(color);
+
+        // Reuse the subtree of the position the opponents left us in, if the last search reached it
+        Node reused = root == null ? null : root.find(hash, position.getAmountOfPlayers());
+        if (reused != null) {
+            root = reused;
+            root.detach();
+        } else {
+            root = new Node(null, null, (color + position.getAmountOfPlayers() - 1) % position.getAmountOfPlayers(), color, hash);
+        }
+
+        int reusedVisits = root.getVisits();
+        long begin = System.currentTimeMillis();
+        long deadline = millisPerMove > 0 ? begin + millisPerMove : Long.MAX_VALUE;
+        AtomicInteger playouts = new AtomicInteger();
+
+        List<ForkJoinTask<?>> helpers = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            Board helperPosition = position.deepCopy();
+            helpers.add(SearchPool.getPool().submit(() -> search(helperPosition, playouts, deadline)));
+        }
+
+        search(position, playouts, deadline);
+        for (ForkJoinTask<?> helper : helpers) {
+            helper.join();
+        }
+
+        lastPlayouts = playouts.get();
+        lastMillis = System.currentTimeMillis() - begin;
+
+        Node best = root.getMostVisitedChild();
+        if (best == null) {
+            throw new RuntimeException("Color " + color + " has no moves!");
+        }
+
+        System.out.println("Ran " + lastPlayouts + " playouts as " + id + " (reused " + reusedVisits + ")");
+        System.out.println(best.getMove() + ", " + best.getVisits() + " visits, " + best.getMeanReward());
+
+        root = best;
+        root.detach();
+
+        return best.getMove();
+    }
+
+    private void search (Board position, AtomicInteger playouts, long deadline) {
+        Random random = ThreadLocalRandom.current();
+        double[] rewards = new double[position.getAmountOfPlayers()];
+
+        while ((playoutsPerMove <= 0 || playouts.get() < playoutsPerMove) && System.currentTimeMillis() < deadline) {
+            iterate(position, rewards, random);
+            playouts.incrementAndGet();
+        }
+    }
+
+    private void iterate (Board position, double[] rewards, Random random) {
+        Node node = root;
+        int placed = 0;
+
+        node.addVirtualLoss();
+        while (true) {
+            Node child = node.expand(position, random);
+            if (child != null) {
+                node = child;
+                if (node.getMove() != null) {
+                    placed++;
+                }
+                break;
+            }
+
+            if (node.isTerminal()) {
+                break;
+            }
+
+            node = node.selectChild(EXPLORATION);
+            node.addVirtualLoss();
+            if (node.getMove() != null) {
+                position.putOnBoard(node.getMove());
+                placed++;
+            }
+        }
+
+        placed += playout(position, node.getToMove(), random);
+        score(position, rewards);
+
+        for (; node != null; node = node.getParent()) {
+            node.update(rewards);
+        }
+
+        if (placed > 0) {
+            position.undo(placed - 1);
+        }
+    }
+
+    /**
+     * Plays random moves until nobody can move and returns how many were placed.
+     */
+    private int playout (Board position, int toMove, Random random) {
+        int amountOfPlayers = position.getAmountOfPlayers();
+        int placed = 0;
+        int passes = 0;
+
+        while (passes < amountOfPlayers) {
+            if (position.playRandomMove(toMove, random)) {
+                placed++;
+                passes = 0;
+            } else {
+                passes++;
+            }
+
+            toMove = (toMove + 1) % amountOfPlayers;
+        }
+
+        return placed;
+    }
+
+    /**
+     * Splits a reward of 1 between the colors with the fewest squares left.
+     */
+    private static void score (Board position, double[] rewards) {
+        int best = Integer.MAX_VALUE;
+        int winners = 0;
+
+        for (int color = 0; color < rewards.length; color++) {
+            int squaresLeft = position.getSquaresLeft(color);
+            rewards[color] = squaresLeft;
+
+            if (squaresLeft < best) {
+                best = squaresLeft;
+                winners = 1;
+            } else if (squaresLeft == best) {
+                winners++;
+            }
+        }
+
+        for (int color = 0; color < rewards.length; color++) {
+            rewards[color] = rewards[color] == best ? 1.0 / winners : 0;
+        }
+    }
+
+    int getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    long getLastMillis() {
+        return lastMillis;
+    }
+
+    @Override
+    public void updateValues(Board board, int turn, int moveCount) {
+        this.board = board;
+        this.turn = turn;
+        this.moveCount = moveCount;
+    }
+
+    @Override
+    public int getColor() {
+        return color;
+    }
+}
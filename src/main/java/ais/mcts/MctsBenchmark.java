@@ -0,0 +1,38 @@
+package ais.mcts;
+
+import blokus.Board;
+
+public class MctsBenchmark {
+    private static final long MILLIS_PER_RUN = 5000;
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        Board board = Board.ORIGINAL_BOARD.deepCopy();
+
+        // Warm up the JIT before measuring anything
+        run(board, 1);
+
+        double baseline = 0;
+
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            MctsAi ai = run(board, threads);
+
+            double playoutsPerSecond = ai.getLastPlayouts() / (ai.getLastMillis() / 1000.0);
+            if (threads == 1) {
+                baseline = playoutsPerSecond;
+            }
+
+            System.out.println(threads + " threads:");
+            System.out.println("\tPlayouts per second: " + (long) playoutsPerSecond);
+            System.out.println("\tScaling:             " + playoutsPerSecond / baseline + "x");
+        }
+    }
+
+    private static MctsAi run (Board board, int threads) {
+        MctsAi ai = new MctsAi(board.deepCopy(), 0, "benchmark", null, 0, MILLIS_PER_RUN, threads);
+        ai.updateValues(board.deepCopy(), 0, 0);
+        ai.getMove();
+
+        return ai;
+    }
+}
@@ -0,0 +1,203 @@
+package ais.mcts;
+
+import blokus.Board;
+import blokus.Move;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A position in the search tree. Rewards are kept from the point of view of the color that made the
+ * move leading here, so every color picks the child that is best for itself (max^n style), which
+ * works the same for 2 and 4 players.
+ *
+ * Several threads can search the same tree. Statistics are atomics and children are published
+ * through a volatile count, so descending never locks; only expanding a node does.
+ */
+class Node {
+    static final int VIRTUAL_LOSS = 1;
+
+    private static final double REWARD_SCALE = 1 << 20;
+
+    private volatile Node parent;
+    private final Move move;
+    private final int color;
+    private final int toMove;
+    private final long hash;
+
+    private Move[] untriedMoves;
+    private int untriedCount;
+    private Node[] children;
+    private volatile int childCount;
+    private volatile boolean terminal;
+
+    private final AtomicInteger visits;
+    private final AtomicLong reward = new AtomicLong();
+
+    /**
+     * {@code move} is null for the root and for a pass, which is the only child of a color that has
+     * run out of moves while others can still play.
+     */
+    Node(Node parent, Move move, int color, int toMove, long hash) {
+        this.parent = parent;
+        this.move = move;
+        this.color = color;
+        this.toMove = toMove;
+        this.hash = hash;
+
+        // A new child already carries the virtual loss of the thread that expanded it
+        visits = new AtomicInteger(parent == null ? 0 : VIRTUAL_LOSS);
+    }
+
+    /**
+     * Takes a random untried move, puts it on {@code board} (which must hold this node's position) and
+     * returns the new child. Returns null once every move has been tried or the game is over here.
+     */
+    synchronized Node expand(Board board, Random random) {
+        if (untriedMoves == null) {
+            generateMoves(board);
+        }
+
+        if (untriedCount == 0) {
+            return null;
+        }
+
+        int index = random.nextInt(untriedCount);
+        Move move = untriedMoves[index];
+        untriedMoves[index] = untriedMoves[--untriedCount];
+        untriedMoves[untriedCount] = null;
+
+        if (move != null) {
+            board.putOnBoard(move);
+        }
+
+        int next = (toMove + 1) % board.getAmountOfPlayers();
+        Node child = new Node(this, move, toMove, next, board.getHash(next));
+        children[childCount] = child;
+        childCount++;
+
+        return child;
+    }
+
+    private void generateMoves(Board board) {
+        List<Move> moves = board.getAllFittingMoves(toMove);
+
+        if (moves.isEmpty()) {
+            boolean othersCanPlay = false;
+            for (int other = 0; other < board.getAmountOfPlayers() && !othersCanPlay; other++) {
+                othersCanPlay = board.hasMoves(other);
+            }
+
+            if (othersCanPlay) {
+                moves.add(null);
+            } else {
+                terminal = true;
+            }
+        }
+
+        untriedMoves = moves.toArray(new Move[0]);
+        untriedCount = untriedMoves.length;
+        children = new Node[untriedMoves.length];
+    }
+
+    boolean isTerminal() {
+        return terminal;
+    }
+
+    Node selectChild(double exploration) {
+        double logVisits = Math.log(visits.get());
+        Node best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+
+        int count = childCount;
+        for (int i = 0; i < count; i++) {
+            Node child = children[i];
+            int childVisits = child.visits.get();
+            double value = child.reward.get() / REWARD_SCALE / childVisits + exploration * Math.sqrt(logVisits / childVisits);
+
+            if (value > bestValue) {
+                best = child;
+                bestValue = value;
+            }
+        }
+
+        return best;
+    }
+
+    Node getMostVisitedChild() {
+        Node best = null;
+
+        int count = childCount;
+        for (int i = 0; i < count; i++) {
+            if (best == null || children[i].getVisits() > best.getVisits()) {
+                best = children[i];
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Looks for the node of the position with {@code hash} at most {@code depth} plies below this one.
+     */
+    Node find(long hash, int depth) {
+        if (this.hash == hash) {
+            return this;
+        }
+
+        if (depth > 0) {
+            int count = childCount;
+            for (int i = 0; i < count; i++) {
+                Node found = children[i].find(hash, depth - 1);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Counts a thread passing through, so that other threads lean towards different children until
+     * its playout is backed up.
+     */
+    void addVirtualLoss() {
+        visits.addAndGet(VIRTUAL_LOSS);
+    }
+
+    /**
+     * Backs up a playout through a node that was given a virtual loss on the way down.
+     */
+    void update(double[] rewards) {
+        reward.addAndGet(Math.round(rewards[color] * REWARD_SCALE));
+        visits.addAndGet(1 - VIRTUAL_LOSS);
+    }
+
+    void detach() {
+        parent = null;
+    }
+
+    Node getParent() {
+        return parent;
+    }
+
+    Move getMove() {
+        return move;
+    }
+
+    int getToMove() {
+        return toMove;
+    }
+
+    int getVisits() {
+        return visits.get();
+    }
+
+    double getMeanReward() {
+        int visitCount = visits.get();
+        return visitCount == 0 ? 0 : reward.get() / REWARD_SCALE / visitCount;
+    }
+}
@@ -0,0 +1,15 @@
+package ais.multiplayerai;
+
+import ais.twoplayerai.PositionEvaluator;
+import blokus.Board;
+import uis.UI;
+
+/**
+ * Plays with best-reply search, which reaches useful depths with four colors where full max^n can't.
+ * {@code depth} counts layers: one of our moves or the one strongest opponent reply.
+ */
+public class BestReplyAi extends MultiPlayerAi {
+    public BestReplyAi(Board initialPosition, int color, String id, UI ui, int depth, PositionEvaluator positionEvaluator, int n) {
+        super(initialPosition, color, id, ui, depth, positionEvaluator, n, SearchMode.BEST_REPLY);
+    }
+}
@@ -0,0 +1,53 @@
+package ais.multiplayerai;
+
+import ais.twoplayerai.PositionEvaluator;
+import ais.twoplayerai.SearchPool;
+import blokus.Board;
+import blokus.Move;
+import blokus.Player;
+import misc.Pair;
+import uis.UI;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+public class MultiPlayerAi extends Player {
+
+    private MultiPlayerEvaluator evaluator;
+    private int depth;
+
+    public MultiPlayerAi(Board initialPosition, int color, String id, UI ui, int depth, PositionEvaluator positionEvaluator, int n, SearchMode mode) {
+        super(initialPosition, color, id, ui);
+        this.depth = depth;
+
+        evaluator = new MultiPlayerEvaluator(color, positionEvaluator, n, mode);
+    }
+
+    @Override
+    public Move getMove() {
+        List<Move> moves = board.getFirstNFittingMoves(evaluator.getN(), color);
+        System.out.println("Found " + moves.size() + " moves as " + id);
+
+        List<ForkJoinTask<Double>> tasks = new ArrayList<>();
+        for (Move move : moves) {
+            Board position = board.deepCopy();
+            position.putOnBoard(move);
+            tasks.add(SearchPool.getPool().submit(() -> evaluator.evaluateMove(position, depth, move)));
+        }
+
+        List<Pair<Move, Double>> moveScores = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            moveScores.add(new Pair<>(moves.get(i), tasks.get(i).join()));
+        }
+
+        moveScores.sort((moveDoublePair, t1) -> Double.compare(t1.getV(), moveDoublePair.getV()));
+        System.out.println(evaluator.getMode() + ": " + moveScores.get(0).getK() + ", " + moveScores.get(0).getV());
+
+        return moveScores.get(0).getK();
+    }
+
+    public PositionEvaluator getPositionEvaluator() {
+        return evaluator.getPositionEvaluator();
+    }
+}
@@ -0,0 +1,206 @@
+package ais.multiplayerai;
+
+import ais.twoplayerai.PositionEvaluator;
+import blokus.Board;
+import blokus.Move;
+import blokus.MoveList;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Searches games of any number of colors, cycling through {@link Board#getAmountOfPlayers()} colors.
+ * A color that can't move passes, and the search stops early when nobody can move.
+ *
+ * Only paranoid and best-reply search prune. Shallow pruning in max^n needs every evaluation to be non-negative
+ * with a fixed sum over the colors, which {@link PositionEvaluator}s don't guarantee.
+ */
+public class MultiPlayerEvaluator {
+    private int color;
+    private PositionEvaluator positionEvaluator;
+    private int n;
+    private SearchMode mode;
+
+    public MultiPlayerEvaluator(int color, PositionEvaluator positionEvaluator, int n, SearchMode mode) {
+        this.color = color;
+        this.positionEvaluator = positionEvaluator;
+        this.n = n;
+        this.mode = mode;
+    }
+
+    /**
+     * Scores {@code position}, on which {@code initialMove} has just been played, for our color.
+     */
+    double evaluateMove(Board position, int depth, Move initialMove) {
+        int toMove = next(position, initialMove.getColor());
+
+        switch (mode) {
+            case PARANOID:
+                return paranoid(position, depth, toMove, -1e10f, 1e10f);
+            case MAX_N:
+                return maxN(position, depth, toMove)[color];
+            case BEST_REPLY:
+                return bestReply(position, depth, false, -1e10f, 1e10f);
+            default:
+                throw new RuntimeException("Unknown search mode " + mode + "!");
+        }
+    }
+
+    private double paranoid (Board node, int depth, int toMove, double alpha, double beta) {
+        if (depth <= 0) {
+            return positionEvaluator.evaluatePosition(node, color);
+        }
+
+        MoveList moves = new MoveList();
+        node.getFirstNFittingMoves(n, toMove, moves);
+        if (moves.isEmpty()) {
+            if (isGameOver(node)) {
+                return positionEvaluator.evaluatePosition(node, color);
+            }
+
+            return paranoid(node, depth - 1, next(node, toMove), alpha, beta);
+        }
+
+        boolean maximizingPlayer = toMove == color;
+        double value = maximizingPlayer ? -1e10f : 1e10f;
+
+        for (int i = 0; i < moves.size(); i++) {
+            node.putOnBoard(moves.get(i));
+            double score = paranoid(node, depth - 1, next(node, toMove), alpha, beta);
+            node.undo(0);
+
+            if (maximizingPlayer) {
+                value = max(value, score);
+                alpha = max(alpha, value);
+            } else {
+                value = min(value, score);
+                beta = min(beta, value);
+            }
+
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        return value;
+    }
+
+    private double[] maxN (Board node, int depth, int toMove) {
+        if (depth <= 0) {
+            return evaluateForAll(node);
+        }
+
+        MoveList moves = new MoveList();
+        node.getFirstNFittingMoves(n, toMove, moves);
+        if (moves.isEmpty()) {
+            if (isGameOver(node)) {
+                return evaluateForAll(node);
+            }
+
+            return maxN(node, depth - 1, next(node, toMove));
+        }
+
+        double[] best = null;
+
+        for (int i = 0; i < moves.size(); i++) {
+            node.putOnBoard(moves.get(i));
+            double[] scores = maxN(node, depth - 1, next(node, toMove));
+            node.undo(0);
+
+            if (best == null || scores[toMove] > best[toMove]) {
+                best = scores;
+            }
+        }
+
+        return best;
+    }
+
+    private double bestReply (Board node, int depth, boolean maximizingPlayer, double alpha, double beta) {
+        if (depth <= 0) {
+            return positionEvaluator.evaluatePosition(node, color);
+        }
+
+        MoveList moves = new MoveList();
+        if (maximizingPlayer) {
+            node.getFirstNFittingMoves(n, color, moves);
+        } else {
+            getOpponentMoves(node, moves);
+        }
+        if (moves.isEmpty()) {
+            if (isGameOver(node)) {
+                return positionEvaluator.evaluatePosition(node, color);
+            }
+
+            return bestReply(node, depth - 1, !maximizingPlayer, alpha, beta);
+        }
+
+        double value = maximizingPlayer ? -1e10f : 1e10f;
+
+        for (int i = 0; i < moves.size(); i++) {
+            node.putOnBoard(moves.get(i));
+            double score = bestReply(node, depth - 1, !maximizingPlayer, alpha, beta);
+            node.undo(0);
+
+            if (maximizingPlayer) {
+                value = max(value, score);
+                alpha = max(alpha, value);
+            } else {
+                value = min(value, score);
+                beta = min(beta, value);
+            }
+
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        return value;
+    }
+
+    private void getOpponentMoves (Board node, MoveList moves) {
+        MoveList opponentMoves = new MoveList();
+
+        for (int opponent = 0; opponent < node.getAmountOfPlayers(); opponent++) {
+            if (opponent != color) {
+                node.getFirstNFittingMoves(n, opponent, opponentMoves);
+                moves.addAll(opponentMoves);
+            }
+        }
+    }
+
+    private double[] evaluateForAll (Board node) {
+        double[] scores = new double[node.getAmountOfPlayers()];
+
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = positionEvaluator.evaluatePosition(node, i);
+        }
+
+        return scores;
+    }
+
+    private static boolean isGameOver (Board node) {
+        for (int i = 0; i < node.getAmountOfPlayers(); i++) {
+            if (node.hasMoves(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int next (Board node, int color) {
+        return (color + 1) % node.getAmountOfPlayers();
+    }
+
+    public PositionEvaluator getPositionEvaluator() {
+        return positionEvaluator;
+    }
+
+    public SearchMode getMode() {
+        return mode;
+    }
+
+    public int getN() {
+        return n;
+    }
+}
@@ -0,0 +1,19 @@
+package ais.multiplayerai;
+
+public enum SearchMode {
+    /**
+     * Every opponent is assumed to play against us, which turns the game into two-player alpha-beta.
+     */
+    PARANOID,
+
+    /**
+     * Every color maximizes its own evaluation.
+     */
+    MAX_N,
+
+    /**
+     * Best-reply search: only the single strongest reply among all opponents is played between two of
+     * our moves, so the tree alternates between max and min layers and alpha-beta applies.
+     */
+    BEST_REPLY
+}
@@ -0,0 +1,144 @@
+package ais.twoplayerai;
+
+import blokus.Board;
+import blokus.Move;
+import blokus.MoveList;
+import blokus.PackedMove;
+import misc.Pair;
+
+import static java.lang.Math.max;
+
+/**
+ * Searches two-player positions to the end of the game and scores them with the real result: the
+ * squares the opponent has left minus our own, as {@code Runner} counts them. A color without moves
+ * passes, and the game ends when neither can move.
+ *
+ * Scores are exact, so the solver keeps its own transposition table instead of mixing them with the
+ * heuristic scores of {@link Evaluator}.
+ */
+class EndgameSolver {
+    private static final int TRANSPOSITION_TABLE_BITS = 18;
+    private static final int SOLVED_DEPTH = 255;
+
+    private final TranspositionTable transpositionTable = new TranspositionTable(TRANSPOSITION_TABLE_BITS);
+
+    private long deadline;
+    private long nodeCount;
+
+    /**
+     * Returns the best move for {@code color} with its exact final score, or null if the game couldn't be
+     * solved before {@code deadline}.
+     */
+    Pair<Move, Double> solve (Board position, int color, long deadline) {
+        this.deadline = deadline;
+        nodeCount = 0;
+
+        MoveList moves = orderedMoves(position, color, PackedMove.NONE);
+        int bestMove = PackedMove.NONE;
+        int best = Integer.MIN_VALUE + 1;
+
+        try {
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                position.putOnBoard(move);
+                int score = -negamax(position, 1 - color, Integer.MIN_VALUE + 1, -best, 0);
+                position.undo(0);
+
+                if (bestMove == PackedMove.NONE || score > best) {
+                    bestMove = move;
+                    best = score;
+                }
+            }
+        } catch (SearchAbortedException e) {
+            return null;
+        }
+
+        return bestMove == PackedMove.NONE ? null : new Pair<>(PackedMove.toMove(bestMove), (double) best);
+    }
+
+    private int negamax (Board node, int toMove, int alpha, int beta, int passes) {
+        nodeCount++;
+        if ((nodeCount & 1023) == 0 && System.currentTimeMillis() > deadline) {
+            throw new SearchAbortedException();
+        }
+
+        long hash = node.getHash(toMove);
+        long entry = transpositionTable.probe(hash);
+        int hashMove = PackedMove.NONE;
+
+        if (entry != 0) {
+            hashMove = TranspositionTable.getBestMove(entry, toMove);
+            double score = transpositionTable.getScore(hash, entry);
+
+            if (!Double.isNaN(score)) {
+                int bound = TranspositionTable.getBound(entry);
+
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return (int) score;
+                }
+            }
+        }
+
+        MoveList moves = orderedMoves(node, toMove, hashMove);
+        if (moves.isEmpty()) {
+            if (passes == 1) {
+                return node.getSquaresLeft(1 - toMove) - node.getSquaresLeft(toMove);
+            }
+
+            return -negamax(node, 1 - toMove, -beta, -alpha, passes + 1);
+        }
+
+        int alphaOriginal = alpha;
+        int value = Integer.MIN_VALUE + 1;
+        int bestMove = PackedMove.NONE;
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            node.putOnBoard(move);
+            int score = -negamax(node, 1 - toMove, -beta, -alpha, 0);
+            node.undo(0);
+
+            if (bestMove == PackedMove.NONE || score > value) {
+                value = score;
+                bestMove = move;
+            }
+            alpha = max(alpha, value);
+
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        int bound;
+        if (value <= alphaOriginal) {
+            bound = TranspositionTable.UPPER_BOUND;
+        } else if (value >= beta) {
+            bound = TranspositionTable.LOWER_BOUND;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        transpositionTable.store(hash, SOLVED_DEPTH, bound, value, bestMove);
+
+        return value;
+    }
+
+    /**
+     * Every legal move, hash move first and then the biggest pieces, which decide the final score.
+     */
+    private static MoveList orderedMoves (Board node, int color, int hashMove) {
+        MoveList moves = new MoveList();
+        node.getFirstNFittingMoves(Integer.MAX_VALUE, color, moves);
+
+        if (hashMove != PackedMove.NONE) {
+            moves.moveToFront(hashMove);
+        }
+
+        return moves;
+    }
+
+    long getNodeCount () {
+        return nodeCount;
+    }
+}
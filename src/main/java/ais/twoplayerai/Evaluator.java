@@ -2,20 +2,47 @@ package ais.twoplayerai;
 
 import blokus.Board;
 import blokus.Move;
+import blokus.MoveList;
+import blokus.PackedMove;
+import misc.Pair;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
 
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
 public class Evaluator {
+    private static final int TRANSPOSITION_TABLE_BITS = 20;
+    private static final int MIN_SPLIT_DEPTH = 2;
+    private static final int MAX_SURPLUS_TASKS = 2;
+    private static final double ASPIRATION_WINDOW = 50;
+
     private int color;
     private PositionEvaluator positionEvaluator;
 
     private int n;
 
-    private Map<Move, Board> movesAndPositions = new HashMap<>();
+    private Map<Move, List<Move>> principalVariations = new ConcurrentHashMap<>();
+
+    private TranspositionTable transpositionTable = new TranspositionTable(TRANSPOSITION_TABLE_BITS);
+
+    private volatile long deadline = Long.MAX_VALUE;
+    private volatile boolean splitting = true;
+
+    private final MoveOrdering moveOrdering = new MoveOrdering();
+    private volatile boolean ordering = true;
+
+    private final LongAdder nodeCount = new LongAdder();
+    private final LongAdder cutoffCount = new LongAdder();
+    private final LongAdder firstMoveCutoffCount = new LongAdder();
+    private final LongAdder movesBeforeCutoffCount = new LongAdder();
 
 
     public PositionEvaluator getPositionEvaluator() {
@@ -28,74 +55,409 @@ public class Evaluator {
         this.n = n;
     }
 
-    public Board getFinalPosition (Move move) {
-        Board board = movesAndPositions.get(move);
-        if (board != null) {
-            return board;
-        } else {
-            throw new RuntimeException("Didn't find anything!");
+    /**
+     * Replays the principal variation of {@code move} on a copy of {@code position}, the position the
+     * move was searched from, giving the position the search expects at its horizon.
+     */
+    public Board getFinalPosition (Board position, Move move) {
+        Board finalPosition = position.deepCopy();
+        for (Move pvMove : getPrincipalVariation(move)) {
+            finalPosition.putOnBoard(pvMove);
         }
+
+        return finalPosition;
     }
 
 
-    private double decisionTree (Board node, int depth, boolean maximizingPlayer, double alpha, double beta, Move initialMove) {
+    /**
+     * Principal variation search: the first move of a node gets the full window, the rest a null window
+     * that only proves them worse, and are searched again with the full window when the proof fails.
+     * {@code pv} is filled with the best line from {@code node} whenever the node's best score improves.
+     */
+    private double decisionTree (Board node, int depth, int ply, boolean maximizingPlayer, double alpha, double beta, SplitPoint splitPoint, MoveList pv) {
+        int toMove = maximizingPlayer ? color : 1 - color;
+        nodeCount.increment();
+        pv.clear();
+
+        if (System.currentTimeMillis() > deadline || (splitPoint != null && splitPoint.isStopped())) {
+            throw new SearchAbortedException();
+        }
+
         if (depth <= 0) {
-            movesAndPositions.put(initialMove, node.deepCopy());
             return positionEvaluator.evaluatePosition(node, color);
-        } else if ( !node.hasMoves(maximizingPlayer ? color : 1 - color)) {
-            movesAndPositions.put(initialMove, node.deepCopy());
-            return -1e10f + positionEvaluator.evaluatePosition(node, maximizingPlayer ? color : 1 - color);
+        } else if ( !node.hasMoves(toMove)) {
+            return -1e10f + positionEvaluator.evaluatePosition(node, toMove);
         }
 
-        if (maximizingPlayer) {
-            double value = -1e10f;
+        long hash = node.getHash(toMove);
+        long entry = transpositionTable.probe(hash);
+        int hashMove = PackedMove.NONE;
 
-            for (Move move : node.getFirstNFittingMoves(getN(), color)) {
-                node.putOnBoard(move);
+        if (entry != 0) {
+            hashMove = TranspositionTable.getBestMove(entry, toMove);
+            double score = transpositionTable.getScore(hash, entry);
 
-                value = max(value, decisionTree(node, depth - 1, false, alpha, beta, initialMove));
-                alpha = max(alpha, value);
+            if (TranspositionTable.getDepth(entry) >= depth && !Double.isNaN(score)) {
+                switch (TranspositionTable.getBound(entry)) {
+                    case TranspositionTable.EXACT:
+                        alpha = score;
+                        beta = score;
+                        break;
+                    case TranspositionTable.LOWER_BOUND:
+                        alpha = max(alpha, score);
+                        break;
+                    case TranspositionTable.UPPER_BOUND:
+                        beta = min(beta, score);
+                        break;
+                }
 
                 if (alpha >= beta) {
-                    node.undo(0);
-                    break;
+                    return score;
                 }
-
-                node.undo(0);
             }
+        }
 
+        double alphaOriginal = alpha;
+        double betaOriginal = beta;
+        int bestMove = PackedMove.NONE;
 
-            return value;
+        MoveList moves = new MoveList();
+        node.getFirstNFittingMoves(getN(), toMove, moves);
+        if (ordering) {
+            moveOrdering.order(moves, hashMove, ply, node);
+        } else if (hashMove != PackedMove.NONE) {
+            moves.moveToFront(hashMove);
+        }
 
-        } else {
-            double value = 1e10f;
+        double value = maximizingPlayer ? -1e10f : 1e10f;
+        MoveList childPv = new MoveList();
 
-            for (Move move : node.getFirstNFittingMoves(getN(), 1 - color)) {
-                node.putOnBoard(move);
+        for (int i = 0; i < moves.size(); i++) {
+            if (i > 0 && splitting && shouldSplit(depth)) {
+                // Young brothers wait: the eldest brother has narrowed the window, the rest are searched in parallel
+                SplitPoint split = new SplitPoint(splitPoint);
+                List<SearchTask> tasks = new ArrayList<>();
 
-                value = min(value, decisionTree(node, depth - 1, true, alpha, beta, initialMove));
-                beta = min(beta, value);
+                for (int j = i; j < moves.size(); j++) {
+                    Board child = node.deepCopy();
+                    child.putOnBoard(moves.get(j));
+                    tasks.add(new SearchTask(child, depth - 1, ply + 1, !maximizingPlayer, alpha, beta, split));
+                }
 
-                if (alpha >= beta) {
-                    node.undo(0);
-                    break;
+                // Forked in reverse so that this thread picks up the best ordered brothers and thieves take the worst
+                for (int j = tasks.size() - 1; j >= 0; j--) {
+                    tasks.get(j).fork();
                 }
 
+                try {
+                    for (int j = 0; j < tasks.size(); j++) {
+                        double score = tasks.get(j).join();
+                        int move = moves.get(i + j);
+
+                        if (maximizingPlayer ? score > value : score < value) {
+                            bestMove = move;
+                            setPv(pv, move, tasks.get(j).getPv());
+                        }
+
+                        if (maximizingPlayer) {
+                            value = max(value, score);
+                            alpha = max(alpha, value);
+                        } else {
+                            value = min(value, score);
+                            beta = min(beta, value);
+                        }
+
+                        if (alpha >= beta) {
+                            recordCutoff(move, i + j, ply, depth);
+                            break;
+                        }
+                    }
+                } finally {
+                    split.stop();
+                }
+
+                break;
+            }
+
+            int move = moves.get(i);
+            node.putOnBoard(move);
+
+            double score;
+            try {
+                if (i == 0) {
+                    score = decisionTree(node, depth - 1, ply + 1, !maximizingPlayer, alpha, beta, splitPoint, childPv);
+                } else if (maximizingPlayer) {
+                    score = decisionTree(node, depth - 1, ply + 1, false, alpha, Math.nextUp(alpha), splitPoint, childPv);
+                    if (score > alpha && score < beta) {
+                        score = decisionTree(node, depth - 1, ply + 1, false, alpha, beta, splitPoint, childPv);
+                    }
+                } else {
+                    score = decisionTree(node, depth - 1, ply + 1, true, Math.nextDown(beta), beta, splitPoint, childPv);
+                    if (score < beta && score > alpha) {
+                        score = decisionTree(node, depth - 1, ply + 1, true, alpha, beta, splitPoint, childPv);
+                    }
+                }
+            } finally {
                 node.undo(0);
             }
 
+            if (bestMove == PackedMove.NONE || (maximizingPlayer ? score > value : score < value)) {
+                bestMove = move;
+                setPv(pv, move, childPv);
+            }
+
+            if (maximizingPlayer) {
+                value = max(value, score);
+                alpha = max(alpha, value);
+            } else {
+                value = min(value, score);
+                beta = min(beta, value);
+            }
+
+            if (alpha >= beta) {
+                recordCutoff(move, i, ply, depth);
+                break;
+            }
+        }
 
-            return value;
+        int bound;
+        if (value <= alphaOriginal) {
+            bound = TranspositionTable.UPPER_BOUND;
+        } else if (value >= betaOriginal) {
+            bound = TranspositionTable.LOWER_BOUND;
+        } else {
+            bound = TranspositionTable.EXACT;
         }
+        transpositionTable.store(hash, depth, bound, value, bestMove);
+
+        return value;
+    }
+
+    private static void setPv (MoveList pv, int move, MoveList childPv) {
+        pv.clear();
+        pv.add(move);
+        pv.addAll(childPv);
     }
 
 
+    private void recordCutoff (int move, int moveIndex, int ply, int depth) {
+        cutoffCount.increment();
+        movesBeforeCutoffCount.add(moveIndex);
+        if (moveIndex == 0) {
+            firstMoveCutoffCount.increment();
+        }
+
+        if (ordering) {
+            moveOrdering.recordCutoff(move, ply, depth);
+        }
+    }
+
+    /**
+     * Splitting only pays off when there are idle workers to steal the brothers, so a node is split only
+     * inside a multi-threaded pool whose worker isn't already sitting on a queue of unstolen tasks.
+     */
+    private static boolean shouldSplit (int depth) {
+        return depth >= MIN_SPLIT_DEPTH
+                && ForkJoinTask.inForkJoinPool()
+                && ForkJoinTask.getPool().getParallelism() > 1
+                && ForkJoinTask.getSurplusQueuedTaskCount() < MAX_SURPLUS_TASKS;
+    }
+
     double evaluateMove(Board position, int depth, Move initialMove) {
-        return decisionTree(position, depth, false, -1e10f, 1e10f, initialMove);
+        return evaluateMove(position, depth, initialMove, Double.NaN);
+    }
+
+    /**
+     * Searches with an aspiration window around {@code guess}, usually the move's score from the previous
+     * iteration, and widens it on the failing side until the score falls inside. A NaN guess searches
+     * with the full window straight away.
+     */
+    double evaluateMove(Board position, int depth, Move initialMove, double guess) {
+        return searchRootMove(position, depth, initialMove, guess, null, true);
+    }
+
+    private double searchRootMove (Board position, int depth, Move initialMove, double guess, SplitPoint stop, boolean recordPv) {
+        MoveList pv = new MoveList();
+        double alpha = -1e10f;
+        double beta = 1e10f;
+        double window = ASPIRATION_WINDOW;
+
+        if (!Double.isNaN(guess)) {
+            alpha = guess - window;
+            beta = guess + window;
+        }
+
+        double score;
+        while (true) {
+            score = decisionTree(position, depth, 0, false, alpha, beta, stop, pv);
+
+            if (score <= alpha && alpha > -1e10f) {
+                window *= 4;
+                alpha = max(score - window, -1e10f);
+            } else if (score >= beta && beta < 1e10f) {
+                window *= 4;
+                beta = min(score + window, 1e10f);
+            } else {
+                break;
+            }
+        }
+
+        if (recordPv) {
+            List<Move> line = new ArrayList<>();
+            line.add(initialMove);
+            line.addAll(pv.toMoves());
+            principalVariations.put(initialMove, line);
+        }
+
+        return score;
+    }
+
+    /**
+     * The line the last search expects after {@code move}, starting with {@code move} itself.
+     */
+    public List<Move> getPrincipalVariation (Move move) {
+        List<Move> line = principalVariations.get(move);
+        if (line != null) {
+            return line;
+        } else {
+            throw new RuntimeException("Didn't find anything!");
+        }
+    }
+
+    /**
+     * Lazy SMP: {@code threads} threads search every root move at the same time and share nothing but
+     * the transposition table. Helpers search the root in a slightly different order, odd ones one ply
+     * deeper, and are stopped as soon as the main thread finishes. Returns the main thread's scores in
+     * the order of {@code moves}.
+     */
+    List<Pair<Move, Double>> searchLazySmp (Board position, List<Move> moves, Map<Move, Double> guesses, int depth, int threads) {
+        SplitPoint helpersDone = new SplitPoint(null);
+        List<ForkJoinTask<?>> helpers = new ArrayList<>();
+
+        for (int helper = 1; helper < threads; helper++) {
+            List<Move> helperMoves = new ArrayList<>(moves);
+            Collections.rotate(helperMoves, -helper);
+            Board helperPosition = position.deepCopy();
+            int helperDepth = depth + helper % 2;
+
+            helpers.add(SearchPool.getCurrentPool().submit(() -> searchAll(helperPosition, helperMoves, guesses, helperDepth, helpersDone)));
+        }
+
+        try {
+            return searchAll(position, moves, guesses, depth, null);
+        } finally {
+            helpersDone.stop();
+            for (ForkJoinTask<?> helper : helpers) {
+                helper.quietlyJoin();
+            }
+        }
+    }
+
+    private List<Pair<Move, Double>> searchAll (Board position, List<Move> moves, Map<Move, Double> guesses, int depth, SplitPoint stop) {
+        List<Pair<Move, Double>> moveScores = new ArrayList<>();
+
+        for (Move move : moves) {
+            position.putOnBoard(move);
+            try {
+                double guess = guesses.getOrDefault(move, Double.NaN);
+                moveScores.add(new Pair<>(move, searchRootMove(position, depth, move, guess, stop, stop == null)));
+            } finally {
+                position.undo(0);
+            }
+        }
+
+        return moveScores;
+    }
+
+    /**
+     * Lazy SMP relies on every thread searching whole subtrees itself, so it switches splitting off.
+     */
+    void setSplitting(boolean splitting) {
+        this.splitting = splitting;
+    }
+
+    /**
+     * Orders moves with killers, history and a static score. Without it only the hash move is moved first.
+     */
+    public void setMoveOrdering(boolean ordering) {
+        this.ordering = ordering;
+    }
+
+    /**
+     * Forgets the killer moves and ages the history table; call before searching a new position.
+     */
+    void newSearch() {
+        moveOrdering.age();
+    }
+
+    public long getNodeCount() {
+        return nodeCount.sum();
+    }
+
+    public void resetNodeCount() {
+        nodeCount.reset();
+        cutoffCount.reset();
+        firstMoveCutoffCount.reset();
+        movesBeforeCutoffCount.reset();
+    }
+
+    public String getCutoffStatistics() {
+        long cutoffs = cutoffCount.sum();
+
+        return "nodes " + nodeCount.sum()
+                + ", cutoffs " + cutoffs
+                + ", on first move " + (cutoffs == 0 ? 0 : 100.0 * firstMoveCutoffCount.sum() / cutoffs) + "%"
+                + ", moves tried before cutoff " + (cutoffs == 0 ? 0 : (double) movesBeforeCutoffCount.sum() / cutoffs);
+    }
+
+    private class SearchTask extends RecursiveTask<Double> {
+        private final Board node;
+        private final int depth;
+        private final int ply;
+        private final boolean maximizingPlayer;
+        private final double alpha;
+        private final double beta;
+        private final SplitPoint splitPoint;
+        private final MoveList pv = new MoveList();
+
+        SearchTask(Board node, int depth, int ply, boolean maximizingPlayer, double alpha, double beta, SplitPoint splitPoint) {
+            this.node = node;
+            this.depth = depth;
+            this.ply = ply;
+            this.maximizingPlayer = maximizingPlayer;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.splitPoint = splitPoint;
+        }
+
+        @Override
+        protected Double compute() {
+            return decisionTree(node, depth, ply, maximizingPlayer, alpha, beta, splitPoint, pv);
+        }
+
+        MoveList getPv() {
+            return pv;
+        }
     }
 
     public int getN() {
         return n;
     }
 
+    void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    long getDeadline() {
+        return deadline;
+    }
+
+    void clearDeadline() {
+        deadline = Long.MAX_VALUE;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
 }
@@ -0,0 +1,54 @@
+package ais.twoplayerai;
+
+import blokus.Board;
+import blokus.Move;
+import misc.RandomMoves;
+
+import java.util.Collections;
+import java.util.List;
+
+public class LazySmpBenchmark {
+    private static final int DEPTH = 3;
+    private static final int N = 10;
+    private static final int OPENING_MOVES = 8;
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+
+        Board board = Board.DUO_BOARD.deepCopy();
+        RandomMoves.play(board, OPENING_MOVES);
+
+        int color = OPENING_MOVES % board.getAmountOfPlayers();
+        List<Move> moves = board.getFirstNFittingMoves(N, color);
+
+        // Warm up the JIT before measuring anything
+        search(board, color, moves, 1);
+
+        double baseline = 0;
+
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            Evaluator evaluator = new Evaluator(color, MyPositionEvaluator.EVALUATOR_0, N);
+            evaluator.setSplitting(false);
+
+            long begin = System.nanoTime();
+            evaluator.searchLazySmp(board.deepCopy(), moves, Collections.emptyMap(), DEPTH, threads);
+            long time = System.nanoTime() - begin;
+
+            double nodesPerSecond = evaluator.getNodeCount() / (time / 1e9);
+            if (threads == 1) {
+                baseline = nodesPerSecond;
+            }
+
+            System.out.println(threads + " threads:");
+            System.out.println("\tTime to depth " + DEPTH + ":  " + time / 1000000 + " ms");
+            System.out.println("\tNodes per second: " + (long) nodesPerSecond);
+            System.out.println("\tScaling:          " + nodesPerSecond / baseline + "x");
+        }
+    }
+
+    private static void search (Board board, int color, List<Move> moves, int threads) {
+        Evaluator evaluator = new Evaluator(color, MyPositionEvaluator.EVALUATOR_0, N);
+        evaluator.setSplitting(false);
+        evaluator.searchLazySmp(board.deepCopy(), moves, Collections.emptyMap(), DEPTH, threads);
+    }
+}
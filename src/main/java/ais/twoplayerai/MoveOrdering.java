@@ -0,0 +1,125 @@
+package ais.twoplayerai;
+
+import blokus.Board;
+import blokus.MoveList;
+import blokus.PackedMove;
+import blokus.Shape;
+import blokus.ShapeTable;
+
+import java.util.Arrays;
+
+/**
+ * Orders the moves of a node: the hash move first, then the killer moves of the ply, then by history
+ * score and finally by a cheap static score (big pieces close to the center first).
+ *
+ * One instance is shared by every thread searching with the same {@link Evaluator}. Updates race
+ * without locking; a lost update only makes the ordering slightly worse.
+ */
+class MoveOrdering {
+    static final int MAX_PLY = 64;
+
+    private static final int KILLERS_PER_PLY = 2;
+    private static final int CELL_BITS = 5;
+
+    private static final long HASH_MOVE_SCORE = Long.MAX_VALUE;
+    private static final long KILLER_SCORE = Long.MAX_VALUE - 1 - KILLERS_PER_PLY;
+
+    private final int[][] killers = new int[MAX_PLY][KILLERS_PER_PLY];
+
+    /**
+     * Indexed by shape (piece and orientation) and the cell the shape is placed on.
+     */
+    private final int[] history = new int[ShapeTable.size() << (2 * CELL_BITS)];
+
+    MoveOrdering () {
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, PackedMove.NONE);
+        }
+    }
+
+    void order (MoveList moves, int hashMove, int ply, Board board) {
+        int size = moves.size();
+        long[] scores = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            scores[i] = score(moves.get(i), hashMove, ply, board);
+        }
+
+        // Insertion sort keeps the generator's order between equal scores and move lists are short
+        for (int i = 1; i < size; i++) {
+            int move = moves.get(i);
+            long score = scores[i];
+            int j = i - 1;
+
+            while (j >= 0 && scores[j] < score) {
+                moves.set(j + 1, moves.get(j));
+                scores[j + 1] = scores[j];
+                j--;
+            }
+
+            moves.set(j + 1, move);
+            scores[j + 1] = score;
+        }
+    }
+
+    private long score (int move, int hashMove, int ply, Board board) {
+        if (move == hashMove) {
+            return HASH_MOVE_SCORE;
+        }
+
+        if (ply < MAX_PLY) {
+            int[] plyKillers = killers[ply];
+            for (int i = 0; i < KILLERS_PER_PLY; i++) {
+                if (move == plyKillers[i]) {
+                    return KILLER_SCORE - i;
+                }
+            }
+        }
+
+        return ((long) history[historyIndex(move)] << 16) + staticScore(move, board);
+    }
+
+    /**
+     * Piece size first, then closeness of the piece's center to the center of the board. Always below 2^16.
+     */
+    private static long staticScore (int move, Board board) {
+        Shape shape = PackedMove.getShape(move);
+        int distance = Math.abs(2 * PackedMove.getX(move) + shape.getDimX() - board.getDimX())
+                + Math.abs(2 * PackedMove.getY(move) + shape.getDimY() - board.getDimY());
+
+        return ((long) shape.getSquares().size() << 8) + 255 - Math.min(distance, 255);
+    }
+
+    private static int historyIndex (int move) {
+        return (PackedMove.getShapeIndex(move) << (2 * CELL_BITS)) | (PackedMove.getY(move) << CELL_BITS) | PackedMove.getX(move);
+    }
+
+    /**
+     * Remembers a move that caused a beta cutoff {@code depth} plies from the horizon.
+     */
+    void recordCutoff (int move, int ply, int depth) {
+        if (ply < MAX_PLY) {
+            int[] plyKillers = killers[ply];
+            if (move != plyKillers[0]) {
+                plyKillers[1] = plyKillers[0];
+                plyKillers[0] = move;
+            }
+        }
+
+        history[historyIndex(move)] += depth * depth;
+    }
+
+    /**
+     * Called before each new move: killers belong to the old position's plies, so they go, and history
+     * is halved so that it follows the game.
+     */
+    void age () {
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, PackedMove.NONE);
+        }
+
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+}
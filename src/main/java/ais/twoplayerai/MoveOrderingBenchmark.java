@@ -0,0 +1,39 @@
+package ais.twoplayerai;
+
+import blokus.Board;
+import blokus.Move;
+import misc.RandomMoves;
+
+public class MoveOrderingBenchmark {
+    private static final int DEPTH = 3;
+    private static final int N = 10;
+    private static final int[] OPENING_MOVES = {6, 8, 10};
+
+    public static void main(String[] args) {
+        for (int openingMoves : OPENING_MOVES) {
+            Board board = Board.DUO_BOARD.deepCopy();
+            RandomMoves.play(board, openingMoves);
+
+            System.out.println("After " + openingMoves + " moves, depth " + DEPTH + ":");
+            System.out.println("\tGenerator order: " + search(board, openingMoves, false));
+            System.out.println("\tOrdered:         " + search(board, openingMoves, true));
+        }
+    }
+
+    private static String search (Board board, int openingMoves, boolean ordering) {
+        int color = openingMoves % board.getAmountOfPlayers();
+        Evaluator evaluator = new Evaluator(color, MyPositionEvaluator.EVALUATOR_0, N);
+        evaluator.setMoveOrdering(ordering);
+
+        Board position = board.deepCopy();
+        long begin = System.currentTimeMillis();
+
+        for (Move move : position.getFirstNFittingMoves(N, color)) {
+            position.putOnBoard(move);
+            evaluator.evaluateMove(position, DEPTH, move);
+            position.undo(0);
+        }
+
+        return evaluator.getCutoffStatistics() + ", " + (System.currentTimeMillis() - begin) + " ms";
+    }
+}
@@ -1,16 +1,13 @@
 package ais.twoplayerai;
 
 import blokus.Board;
-import blokus.PieceID;
-import blokus.Position;
+import blokus.BoardFeatures;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import uis.UI;
 import uis.fancyttyui.FancyTtyUI;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.Vector;
+import java.util.function.ToDoubleBiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -41,129 +38,51 @@ public class MyPositionEvaluator implements PositionEvaluator {
     }
 
     private int howManySquaresOnBoard (Board position, int color) {
-        return (int) Math.pow(position.getPieceManager().getPiecesOnBoard(color).stream().mapToInt(PieceID::getAmountOfSquares).sum(), 2);
+        int squares = position.getFeatures().getSquares(color);
+        return squares * squares;
     }
 
     private int howManyCornersFree (Board position, int color) {
-        List<Integer> values = new Vector<>();
-
-        for (var corner : position.getEligibleCorners(color)) {
-            values.add(roomSpace(corner.x, corner.y, position, color));
-        }
-
         double average = 0;
 
-        for (var item : values) {
-            average += Math.pow(item, 2) / Math.pow(position.getDimY() * position.getDimX(), 2);
+        for (int size : position.getCornerRegionSizes(color)) {
+            average += Math.pow(size, 2) / Math.pow(position.getDimY() * position.getDimX(), 2);
         }
 
         return (int) (average + 0.5);
     }
 
+    /**
+     * Sum of the squared distances of the color's squares from their (rounded down) average, halved. The
+     * board keeps the sums of the coordinates and their squares, which is all the expansion needs.
+     */
     private int howMuchSpread (Board position, int color) {
-        Position average = getAverage(position, color);
-        int tempX = 0;
-        int tempY = 0;
-
-        for (int y = 0; y < position.getDimY(); y++) {
-            for (int x = 0; x < position.getDimX(); x++) {
-                if (position.getBoard()[y][x] == color) {
-                    tempX += Math.pow((x - average.x), 2);
-                    tempY += Math.pow((y - average.y), 2);
-                }
-            }
-        }
+        BoardFeatures features = position.getFeatures();
+        int squares = features.getSquares(color);
+        int averageX = getAverageX(features, color);
+        int averageY = getAverageY(features, color);
 
+        int spreadX = features.getSumXSquared(color) - 2 * averageX * features.getSumX(color) + squares * averageX * averageX;
+        int spreadY = features.getSumYSquared(color) - 2 * averageY * features.getSumY(color) + squares * averageY * averageY;
 
-        return (tempX + tempY) / 2;
+        return (spreadX + spreadY) / 2;
     }
 
-    private Position getAverage (Board board, int color) {
-        List<Position> positions = new Vector<>();
-
-        for (int y = 0; y < board.getDimY(); y++) {
-            for (int x = 0; x < board.getDimX(); x++) {
-                if (board.getBoard()[y][x] == color) {
-                    positions.add(new Position(x, y));
-                }
-            }
-        }
-
-        int totalX = 0;
-        int totalY = 0;
-
-        for (Position position : positions) {
-            totalX += position.x;
-            totalY += position.y;
-        }
-
-        return new Position(totalX / (positions.size() + 1), totalY / (positions.size() + 1));
+    private static int getAverageX (BoardFeatures features, int color) {
+        return features.getSumX(color) / (features.getSquares(color) + 1);
+    }
 
+    private static int getAverageY (BoardFeatures features, int color) {
+        return features.getSumY(color) / (features.getSquares(color) + 1);
     }
 
     private boolean sameAmountOfPiecesOnBoard(Board node) {
         return node.getPieceManager().getPiecesOnBoard(0).size() == node.getPieceManager().getPiecesOnBoard(1).size();
     }
 
-    private int roomSpace (int x, int y, Board node, int color) {
-        return dfs(x, y, node.getDimX(), node.getDimY(), boolify(node, color), 0);
-    }
-
-    private int dfs (int x, int y, int dimX, int dimY, boolean[][] alreadyVisited, int area) {
-        if (isOufOfBounds(x, y, dimX, dimY)) {
-            return 0;
-        }
-        if (alreadyVisited[y][x]) {
-            return 0;
-        }
-
-        alreadyVisited[y][x] = true;
-        int newArea = 0;
-
-        for (var adjacent : adjacents(x, y)) {
-            newArea += dfs(adjacent.x, adjacent.y, dimX, dimY, alreadyVisited, area);
-        }
-
-        if (area == 0) {
-            area = 1;
-        }
-
-
-        return area + newArea;
-    }
-
-    private boolean isOufOfBounds(int x, int y, int dimX, int dimY) {
-//        System.out.println("x = [" + x + "], y = [" + y + "], dimX = [" + dimX + "], dimY = [" + dimY + "]");
-
-        return x < 0 || x >= dimX || y < 0 || y >= dimY;
-    }
-
-    private boolean[][] boolify (Board board, int color) {
-        boolean[][] toReturn = new boolean[board.getDimY()][board.getDimX()];
-
-        for (int y = 0; y < board.getDimY(); y++) {
-            for (int x = 0; x < board.getDimX(); x++) {
-                toReturn[y][x] = !board.adjacentsFree(x, y, color) || !board.isEmpty(x, y);
-//                toReturn[y][x] = board.getBoard()[y][x] != -1;
-            }
-        }
-
-
-        return toReturn;
-    }
-
-    private List<Position> adjacents (int x, int y) {
-        return Arrays.asList(
-                new Position(x + 1, y),
-                new Position(x - 1, y),
-                new Position(x, y + 1),
-                new Position(x, y - 1)
-        );
-    }
-
     private double distanceFromCenter (Board position, int color) {
-        int avgX = getAverage(position, color).x;
-        int avgY = getAverage(position, color).y;
+        int avgX = getAverageX(position.getFeatures(), color);
+        int avgY = getAverageY(position.getFeatures(), color);
 
 
 
@@ -174,24 +93,36 @@ public class MyPositionEvaluator implements PositionEvaluator {
         return Math.hypot(dX, dY);
     }
 
-    private static int invert (int color) {
-        return 1 - color;
+    /**
+     * The mean of {@code feature} over every color but {@code color}. With two players this is just the
+     * opponent's value, with more it scores a position as own features minus the average opponent's.
+     */
+    private static double opponents (Board position, int color, ToDoubleBiFunction<Board, Integer> feature) {
+        double total = 0;
+
+        for (int opponent = 0; opponent < position.getAmountOfPlayers(); opponent++) {
+            if (opponent != color) {
+                total += feature.applyAsDouble(position, opponent);
+            }
+        }
+
+        return total / (position.getAmountOfPlayers() - 1);
     }
 
     @Override
     public double evaluatePosition(Board position, int color, boolean verbose) {
 //        return  0.0;
         double[] parameters = new double[]{
-                ((double) howManySquaresOnBoard(position, color) - (double) howManySquaresOnBoard(position, invert(color))) * squaresOnBoardWeight,
-                ((double) howManyCornersFree(position, color) - (double) howManyCornersFree(position, invert(color)) * aggression) * cornersFreeWeight,
-                ((double) howMuchSpread(position, color) - (double) howMuchSpread(position, invert(color))) * spreadWeight,
+                ((double) howManySquaresOnBoard(position, color) - opponents(position, color, this::howManySquaresOnBoard)) * squaresOnBoardWeight,
+                ((double) howManyCornersFree(position, color) - opponents(position, color, this::howManyCornersFree) * aggression) * cornersFreeWeight,
+                ((double) howMuchSpread(position, color) - opponents(position, color, this::howMuchSpread)) * spreadWeight,
 //                -(Math.abs(getAverage(position, color).getAverage() - getAverage(position, invert(color)).getAverage())) * centerDistanceWeight
-                (-distanceFromCenter(position, color) + distanceFromCenter(position, invert(color))) * centerDistanceWeight,
+                (-distanceFromCenter(position, color) + opponents(position, color, this::distanceFromCenter)) * centerDistanceWeight,
         };
 
         if (verbose) {
             System.out.println("\t" + Stream.of((double) howManySquaresOnBoard(position, color), (double) howManyCornersFree(position, color), (double) howMuchSpread(position, color)).map(String::valueOf).collect(Collectors.joining(" ")));
-            System.out.println(" -\t" + Stream.of(howManySquaresOnBoard(position, invert(color)), howManyCornersFree(position, invert(color)), howMuchSpread(position, invert(color))).map(String::valueOf).collect(Collectors.joining(" ")));
+            System.out.println(" -\t" + Stream.of(opponents(position, color, this::howManySquaresOnBoard), opponents(position, color, this::howManyCornersFree), opponents(position, color, this::howMuchSpread)).map(String::valueOf).collect(Collectors.joining(" ")));
 //            Arrays.stream(parameters).mapToObj(Double::valueOf).forEach((item) -> System.out.println(item + " "));
             System.out.println(" =\t" + StringUtils.join(ArrayUtils.toObject(parameters), " "));
 
@@ -0,0 +1,104 @@
+package ais.twoplayerai;
+
+import blokus.Board;
+import blokus.Move;
+import blokus.PackedMove;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Position hash to move table mined from saved games by {@link OpeningBookBuilder}.
+ *
+ * The file is a magic number and an entry count followed by the entries sorted by hash, each a
+ * {@code long} hash ({@link Board#getHash(int)} with the color to move) and an {@code int} {@link PackedMove}.
+ * It is searched in place, memory mapped when loaded from a file.
+ */
+public class OpeningBook {
+    static final int MAGIC = 0x426B4F70;
+    static final int HEADER_SIZE = 8;
+    static final int ENTRY_SIZE = 12;
+
+    public static final String RESOURCE = "/openings.book";
+    // Where the builder writes the book so that it ends up on the classpath as RESOURCE
+    public static final String DEFAULT_PATH = "src/main/resources" + RESOURCE;
+
+    private static OpeningBook defaultBook;
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private OpeningBook (ByteBuffer buffer) {
+        this.buffer = buffer;
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new RuntimeException("Not an opening book!");
+        }
+
+        size = buffer.getInt(4);
+    }
+
+    public static OpeningBook load (String path) {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+            return new OpeningBook(file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length()));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The book at {@link #RESOURCE} on the classpath, read once and shared by every player.
+     */
+    public static synchronized OpeningBook getDefault () {
+        if (defaultBook == null) {
+            defaultBook = new OpeningBook(ByteBuffer.wrap(readResource(RESOURCE)).asReadOnlyBuffer());
+        }
+
+        return defaultBook;
+    }
+
+    private static byte[] readResource (String name) {
+        InputStream in = OpeningBook.class.getResourceAsStream(name);
+        if (in == null) {
+            throw new RuntimeException("Resource " + name + " not found on the classpath!");
+        }
+
+        try (in) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the book move for {@code color} in {@code board}, or null if the position isn't in the book.
+     */
+    public Move getMove (Board board, int color) {
+        long hash = board.getHash(color);
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleHash = buffer.getLong(HEADER_SIZE + middle * ENTRY_SIZE);
+
+            if (middleHash < hash) {
+                low = middle + 1;
+            } else if (middleHash > hash) {
+                high = middle - 1;
+            } else {
+                int move = PackedMove.withColor(buffer.getInt(HEADER_SIZE + middle * ENTRY_SIZE + 8), color);
+                return board.fits(move) ? PackedMove.toMove(move) : null;
+            }
+        }
+
+        return null;
+    }
+
+    public int size () {
+        return size;
+    }
+}
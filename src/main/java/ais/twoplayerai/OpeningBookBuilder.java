@@ -0,0 +1,108 @@
+package ais.twoplayerai;
+
+import blokus.Board;
+import blokus.Move;
+import blokus.PackedMove;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Mines the saved games in {@code src/main/resources/games} into an {@link OpeningBook}. Every position
+ * of the first {@link #BOOK_PLIES} plies gets the move that scored best from it, counting a win as 1 and
+ * a tie as a half. Moves that lost more often than they won are left out.
+ */
+public class OpeningBookBuilder {
+    private static final int BOOK_PLIES = 4;
+    private static final String GAMES = System.getProperty("user.dir") + "/src/main/resources/games";
+
+    public static void main(String[] args) throws IOException {
+        String path = args.length > 0 ? args[0] : OpeningBook.DEFAULT_PATH;
+
+        Map<Long, Map<Integer, double[]>> statistics = new HashMap<>();
+        int games = 0;
+        int skipped = 0;
+
+        File[] files = new File(GAMES).listFiles((dir, name) -> name.endsWith(".ser"));
+        if (files == null) {
+            throw new RuntimeException("No games in " + GAMES + "!");
+        }
+        Arrays.sort(files);
+
+        for (File file : files) {
+            List<Move> moves = SavedGameReader.readMoves(file);
+            if (moves == null || !addGame(statistics, moves)) {
+                skipped++;
+            } else {
+                games++;
+            }
+        }
+
+        SortedMap<Long, Integer> book = new TreeMap<>();
+        statistics.forEach((hash, moveStatistics) -> {
+            Map.Entry<Integer, double[]> best = Collections.max(moveStatistics.entrySet(), Comparator
+                    .<Map.Entry<Integer, double[]>>comparingDouble(entry -> entry.getValue()[0] / entry.getValue()[1])
+                    .thenComparingDouble(entry -> entry.getValue()[1]));
+
+            if (best.getValue()[0] / best.getValue()[1] >= 0.5) {
+                book.put(hash, best.getKey());
+            }
+        });
+
+        write(book, path);
+        System.out.println("Mined " + games + " games (skipped " + skipped + ") into " + book.size() + " positions in " + path);
+    }
+
+    /**
+     * Replays a game on an empty Duo board and credits every book move with the game's result. Returns
+     * false if the game doesn't replay, for example because it was played on another board, or if it
+     * was abandoned before either player ran out of moves.
+     */
+    private static boolean addGame (Map<Long, Map<Integer, double[]>> statistics, List<Move> moves) {
+        Board board = Board.DUO_BOARD.deepCopy();
+        List<Long> hashes = new ArrayList<>();
+
+        for (Move move : moves) {
+            hashes.add(board.getHash(move.getColor()));
+            if (!board.putOnBoard(move)) {
+                return false;
+            }
+        }
+
+        if (board.hasMoves(0) && board.hasMoves(1)) {
+            return false;
+        }
+
+        for (int ply = 0; ply < Math.min(BOOK_PLIES, moves.size()); ply++) {
+            Move move = moves.get(ply);
+            int own = board.getSquaresLeft(move.getColor());
+            int opponent = board.getSquaresLeft(1 - move.getColor());
+            double result = own < opponent ? 1 : own == opponent ? 0.5 : 0;
+
+            double[] moveStatistics = statistics
+                    .computeIfAbsent(hashes.get(ply), hash -> new HashMap<>())
+                    .computeIfAbsent(PackedMove.of(move), code -> new double[2]);
+            moveStatistics[0] += result;
+            moveStatistics[1]++;
+        }
+
+        return true;
+    }
+
+    private static void write (SortedMap<Long, Integer> book, String path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER_SIZE + book.size() * OpeningBook.ENTRY_SIZE);
+        buffer.putInt(OpeningBook.MAGIC);
+        buffer.putInt(book.size());
+
+        book.forEach((hash, move) -> {
+            buffer.putLong(hash);
+            buffer.putInt(move);
+        });
+
+        Files.write(Paths.get(path), buffer.array());
+    }
+}
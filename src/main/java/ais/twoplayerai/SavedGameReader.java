@@ -0,0 +1,305 @@
+package ais.twoplayerai;
+
+import blokus.Move;
+import blokus.Orientation;
+import blokus.PieceID;
+
+import java.io.*;
+import java.util.*;
+
+import static java.io.ObjectStreamConstants.*;
+
+/**
+ * Reads the moves out of a serialized {@link blokus.GameHistory} without loading any of the classes it
+ * names. Most saved games were written by older versions of Board and friends that no longer match the
+ * local classes field for field, so the stream is walked by its own class descriptors instead and only
+ * the Move objects are rebuilt.
+ */
+class SavedGameReader {
+    private final DataInputStream in;
+    private final List<Object> handles = new ArrayList<>();
+
+    private SavedGameReader (InputStream in) {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+    }
+
+    /**
+     * Returns the moves of the saved game in {@code file}, or null if it can't be read.
+     */
+    static List<Move> readMoves (File file) {
+        try (InputStream in = new FileInputStream(file)) {
+            SavedGameReader reader = new SavedGameReader(in);
+            if (reader.in.readShort() != STREAM_MAGIC || reader.in.readShort() != STREAM_VERSION) {
+                return null;
+            }
+
+            Object history = reader.readContent();
+            if (!(history instanceof StreamObject) || !((StreamObject) history).className.equals("blokus.GameHistory")) {
+                return null;
+            }
+
+            List<Move> moves = new ArrayList<>();
+            for (Object element : getElements(((StreamObject) history).fields.get("moves"))) {
+                moves.add(toMove((StreamObject) element));
+            }
+
+            return moves;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The elements of a serialized Vector or ArrayList.
+     */
+    private static List<Object> getElements (Object list) {
+        if (!(list instanceof StreamObject)) {
+            throw new RuntimeException("Not a list: " + list);
+        }
+
+        StreamObject object = (StreamObject) list;
+        if (object.fields.containsKey("elementData")) {
+            Object[] elementData = (Object[]) object.fields.get("elementData");
+            return Arrays.asList(elementData).subList(0, (Integer) object.fields.get("elementCount"));
+        } else {
+            return object.annotations;
+        }
+    }
+
+    private static Move toMove (StreamObject move) {
+        Map<String, Object> fields = move.fields;
+
+        return new Move(
+                (Integer) fields.get("x"),
+                (Integer) fields.get("y"),
+                PieceID.valueOf(((EnumConstant) fields.get("pieceID")).name),
+                (Integer) fields.get("color"),
+                Orientation.valueOf(((EnumConstant) fields.get("orientation")).name),
+                (Boolean) fields.get("flip"));
+    }
+
+    private Object readContent () throws IOException {
+        byte type = in.readByte();
+
+        switch (type) {
+            case TC_NULL:
+                return null;
+            case TC_REFERENCE:
+                return handles.get(in.readInt() - baseWireHandle);
+            case TC_STRING:
+                return newHandle(in.readUTF());
+            case TC_LONGSTRING:
+                return newHandle(readLongString());
+            case TC_CLASSDESC:
+            case TC_PROXYCLASSDESC:
+                return readClassDescriptor(type);
+            case TC_CLASS:
+                return newHandle(readClassDescriptor(in.readByte()));
+            case TC_ENUM:
+                return readEnum();
+            case TC_ARRAY:
+                return readArray();
+            case TC_OBJECT:
+                return readObject();
+            case TC_BLOCKDATA:
+                return skip(in.readUnsignedByte());
+            case TC_BLOCKDATALONG:
+                return skip(in.readInt());
+            case TC_RESET:
+                handles.clear();
+                return readContent();
+            default:
+                throw new StreamCorruptedException("Unsupported type code " + type);
+        }
+    }
+
+    private Object newHandle (Object object) {
+        handles.add(object);
+        return object;
+    }
+
+    private String readLongString () throws IOException {
+        byte[] bytes = new byte[(int) in.readLong()];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private Object skip (int length) throws IOException {
+        in.readFully(new byte[length]);
+        return BlockData.INSTANCE;
+    }
+
+    private ClassDescriptor readClassDescriptor (byte type) throws IOException {
+        switch (type) {
+            case TC_NULL:
+                return null;
+            case TC_REFERENCE:
+                return (ClassDescriptor) handles.get(in.readInt() - baseWireHandle);
+            case TC_CLASSDESC:
+                ClassDescriptor descriptor = new ClassDescriptor(in.readUTF());
+                in.readLong();
+                newHandle(descriptor);
+                descriptor.flags = in.readByte();
+
+                int fieldCount = in.readShort();
+                for (int i = 0; i < fieldCount; i++) {
+                    char fieldType = (char) in.readByte();
+                    descriptor.fieldNames.add(in.readUTF());
+                    descriptor.fieldTypes.add(fieldType);
+                    if (fieldType == 'L' || fieldType == '[') {
+                        readContent();
+                    }
+                }
+
+                readAnnotations();
+                descriptor.superClass = readClassDescriptor(in.readByte());
+                return descriptor;
+            case TC_PROXYCLASSDESC:
+                ClassDescriptor proxy = new ClassDescriptor("$Proxy");
+                newHandle(proxy);
+                int interfaces = in.readInt();
+                for (int i = 0; i < interfaces; i++) {
+                    in.readUTF();
+                }
+
+                readAnnotations();
+                proxy.superClass = readClassDescriptor(in.readByte());
+                return proxy;
+            default:
+                throw new StreamCorruptedException("Expected a class descriptor, got " + type);
+        }
+    }
+
+    private EnumConstant readEnum () throws IOException {
+        ClassDescriptor descriptor = readClassDescriptor(in.readByte());
+        EnumConstant constant = new EnumConstant(descriptor.name);
+        newHandle(constant);
+        constant.name = (String) readContent();
+
+        return constant;
+    }
+
+    private Object[] readArray () throws IOException {
+        ClassDescriptor descriptor = readClassDescriptor(in.readByte());
+        Object[] array = new Object[in.readInt()];
+        newHandle(array);
+
+        char componentType = descriptor.name.charAt(1);
+        for (int i = 0; i < array.length; i++) {
+            array[i] = readValue(componentType);
+        }
+
+        return array;
+    }
+
+    private StreamObject readObject () throws IOException {
+        ClassDescriptor descriptor = readClassDescriptor(in.readByte());
+        StreamObject object = new StreamObject(descriptor.name);
+        newHandle(object);
+
+        Deque<ClassDescriptor> hierarchy = new ArrayDeque<>();
+        for (ClassDescriptor current = descriptor; current != null; current = current.superClass) {
+            hierarchy.push(current);
+        }
+
+        for (ClassDescriptor current : hierarchy) {
+            if ((current.flags & SC_EXTERNALIZABLE) != 0) {
+                if ((current.flags & SC_BLOCK_DATA) == 0) {
+                    throw new StreamCorruptedException("Can't skip old-style externalizable " + current.name);
+                }
+                object.annotations.addAll(readAnnotations());
+            } else if ((current.flags & SC_SERIALIZABLE) != 0) {
+                for (int i = 0; i < current.fieldNames.size(); i++) {
+                    object.fields.put(current.fieldNames.get(i), readValue(current.fieldTypes.get(i)));
+                }
+
+                if ((current.flags & SC_WRITE_METHOD) != 0) {
+                    object.annotations.addAll(readAnnotations());
+                }
+            }
+        }
+
+        return object;
+    }
+
+    /**
+     * Reads the objects written by a custom writeObject up to the end marker, dropping raw block data.
+     */
+    private List<Object> readAnnotations () throws IOException {
+        List<Object> annotations = new ArrayList<>();
+
+        while (true) {
+            in.mark(1);
+            if (in.readByte() == TC_ENDBLOCKDATA) {
+                return annotations;
+            }
+            in.reset();
+
+            Object content = readContent();
+            if (content != BlockData.INSTANCE) {
+                annotations.add(content);
+            }
+        }
+    }
+
+    private Object readValue (char type) throws IOException {
+        switch (type) {
+            case 'B':
+                return in.readByte();
+            case 'C':
+                return in.readChar();
+            case 'D':
+                return in.readDouble();
+            case 'F':
+                return in.readFloat();
+            case 'I':
+                return in.readInt();
+            case 'J':
+                return in.readLong();
+            case 'S':
+                return in.readShort();
+            case 'Z':
+                return in.readBoolean();
+            case 'L':
+            case '[':
+                return readContent();
+            default:
+                throw new StreamCorruptedException("Unknown field type " + type);
+        }
+    }
+
+    private static class ClassDescriptor {
+        private final String name;
+        private final List<String> fieldNames = new ArrayList<>();
+        private final List<Character> fieldTypes = new ArrayList<>();
+        private byte flags;
+        private ClassDescriptor superClass;
+
+        private ClassDescriptor (String name) {
+            this.name = name;
+        }
+    }
+
+    private static class StreamObject {
+        private final String className;
+        private final Map<String, Object> fields = new HashMap<>();
+        private final List<Object> annotations = new ArrayList<>();
+
+        private StreamObject (String className) {
+            this.className = className;
+        }
+    }
+
+    private static class EnumConstant {
+        private final String className;
+        private String name;
+
+        private EnumConstant (String className) {
+            this.className = className;
+        }
+    }
+
+    private enum BlockData {
+        INSTANCE
+    }
+}
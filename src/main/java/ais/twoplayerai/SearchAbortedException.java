@@ -0,0 +1,7 @@
+package ais.twoplayerai;
+
+class SearchAbortedException extends RuntimeException {
+    SearchAbortedException() {
+        super("Search ran out of time", null, false, false);
+    }
+}
@@ -0,0 +1,34 @@
+package ais.twoplayerai;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The work-stealing pool every search runs on. It lives as long as the program, so moves and games
+ * reuse the same worker threads.
+ *
+ * Pondering runs on a second, smaller pool so that it can't take workers from the search of the
+ * player whose turn it is.
+ */
+public class SearchPool {
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    private static final ForkJoinPool PONDER_POOL = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 4));
+
+    private SearchPool () {}
+
+    public static ForkJoinPool getPool () {
+        return POOL;
+    }
+
+    public static ForkJoinPool getPonderPool () {
+        return PONDER_POOL;
+    }
+
+    /**
+     * The pool the calling task runs in, or the main pool when called from outside any pool. Searches
+     * submit their subtasks here so that a ponder search stays on the ponder pool.
+     */
+    public static ForkJoinPool getCurrentPool () {
+        return ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : POOL;
+    }
+}
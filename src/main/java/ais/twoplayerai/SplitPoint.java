@@ -0,0 +1,28 @@
+package ais.twoplayerai;
+
+/**
+ * A node whose younger brothers are being searched in parallel. Stopping a split point (after a
+ * beta cutoff) stops every search below it.
+ */
+class SplitPoint {
+    private final SplitPoint parent;
+    private volatile boolean stopped;
+
+    SplitPoint(SplitPoint parent) {
+        this.parent = parent;
+    }
+
+    void stop() {
+        stopped = true;
+    }
+
+    boolean isStopped() {
+        for (SplitPoint splitPoint = this; splitPoint != null; splitPoint = splitPoint.parent) {
+            if (splitPoint.stopped) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
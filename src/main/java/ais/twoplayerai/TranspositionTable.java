@@ -0,0 +1,107 @@
+package ais.twoplayerai;
+
+import blokus.PackedMove;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table that can be shared by several search threads without locking.
+ *
+ * Each entry is spread over three arrays. The key array stores the position hash XORed with the
+ * other two words, so an entry torn by a concurrent write simply fails to match and is ignored.
+ */
+public class TranspositionTable {
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    private static final int NO_MOVE = 0xFFFFFF;
+
+    private final long[] keys;
+    private final long[] scores;
+    private final long[] data;
+    private final int mask;
+
+    public TranspositionTable (int sizeInBits) {
+        int size = 1 << sizeInBits;
+
+        keys = new long[size];
+        scores = new long[size];
+        data = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Stores {@code bestMove}, a {@link PackedMove} or {@link PackedMove#NONE}, without its color.
+     */
+    public void store (long hash, int depth, int bound, double score, int bestMove) {
+        int index = (int) hash & mask;
+        long newScore = Double.doubleToRawLongBits(score);
+        long newData = PackedMove.getCode(bestMove) | ((long) depth << 24) | ((long) bound << 32) | (1L << 40);
+
+        long oldData = data[index];
+        long oldScore = scores[index];
+        boolean sameKey = (keys[index] ^ oldScore ^ oldData) == hash;
+
+        if (sameKey && getDepth(oldData) > depth) {
+            return;
+        }
+
+        keys[index] = hash ^ newScore ^ newData;
+        scores[index] = newScore;
+        data[index] = newData;
+    }
+
+    /**
+     * Returns the packed entry for {@code hash}, or 0 if the table doesn't hold it. Read the fields
+     * with {@link #getDepth(long)}, {@link #getBound(long)}, {@link #getBestMove(long, int)} and
+     * {@link #getScore(long, long)}.
+     */
+    public long probe (long hash) {
+        int index = (int) hash & mask;
+        long entryData = data[index];
+        long entryScore = scores[index];
+
+        if ((keys[index] ^ entryScore ^ entryData) == hash && entryData != 0) {
+            return entryData;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the score stored with a probed entry, or NaN if another thread has replaced the entry since.
+     */
+    public double getScore (long hash, long entry) {
+        int index = (int) hash & mask;
+        long entryScore = scores[index];
+
+        if ((keys[index] ^ entryScore ^ entry) == hash) {
+            return Double.longBitsToDouble(entryScore);
+        } else {
+            return Double.NaN;
+        }
+    }
+
+    public static int getDepth (long entry) {
+        return (int) (entry >>> 24) & 0xFF;
+    }
+
+    public static int getBound (long entry) {
+        return (int) (entry >>> 32) & 0x3;
+    }
+
+    /**
+     * The stored move as a {@link PackedMove} of {@code color}, or {@link PackedMove#NONE}.
+     */
+    public static int getBestMove (long entry, int color) {
+        int code = (int) entry & NO_MOVE;
+        return code == NO_MOVE ? PackedMove.NONE : PackedMove.withColor(code, color);
+    }
+
+    public void clear () {
+        Arrays.fill(keys, 0);
+        Arrays.fill(scores, 0);
+        Arrays.fill(data, 0);
+    }
+}
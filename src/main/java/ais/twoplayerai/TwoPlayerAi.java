@@ -2,85 +2,151 @@ package ais.twoplayerai;
 
 import blokus.Board;
 import blokus.Move;
+import blokus.MoveList;
 import blokus.Player;
-import misc.OnedSpan;
 import misc.Pair;
-import misc.Splitter;
 import uis.UI;
 
 import java.util.*;
-
-import static java.lang.Math.min;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
 
 
 public class TwoPlayerAi extends Player {
+    private static final int DEFAULT_ENDGAME_MOVES = 60;
+    private static final long DEFAULT_ENDGAME_MILLIS = 10000;
 
     private Evaluator evaluator;
     private int depth;
     private boolean randomize;
+    private long millisPerMove;
+    private int lazySmpThreads;
+
+    private OpeningBook openingBook = OpeningBook.getDefault();
+    private EndgameSolver endgameSolver = new EndgameSolver();
+    private int endgameMoves = DEFAULT_ENDGAME_MOVES;
+    private long endgameMillis = DEFAULT_ENDGAME_MILLIS;
+
+    private boolean pondering;
+    private Move expectedReply;
+    private Board ponderPosition;
+    private ForkJoinTask<List<Pair<Move, Double>>> ponderSearch;
 
     public TwoPlayerAi(Board initialPosition, int color, String id, UI ui, int depth, PositionEvaluator positionEvaluator, int n, boolean randomize) {
+        this(initialPosition, color, id, ui, depth, positionEvaluator, n, randomize, 0);
+    }
+
+    /**
+     * With a positive {@code millisPerMove} the search deepens one ply at a time up to {@code depth}
+     * and plays the best move of the last iteration that finished within the time budget.
+     */
+    public TwoPlayerAi(Board initialPosition, int color, String id, UI ui, int depth, PositionEvaluator positionEvaluator, int n, boolean randomize, long millisPerMove) {
         super(initialPosition, color, id, ui);
         this.depth = depth;
         this.randomize = randomize;
+        this.millisPerMove = millisPerMove;
 
         evaluator = new Evaluator(color, positionEvaluator, n);
     }
 
+    /**
+     * With a positive thread count every move is searched with Lazy SMP instead of splitting the tree
+     * between the pool's workers. 0 switches back to splitting.
+     */
+    public void setLazySmpThreads(int lazySmpThreads) {
+        this.lazySmpThreads = lazySmpThreads;
+        evaluator.setSplitting(lazySmpThreads == 0);
+    }
+
+    /**
+     * Book moves are played without searching. Null turns the book off.
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Positions where both colors together have fewer than {@code endgameMoves} legal moves are solved to
+     * the end of the game, unless that takes longer than {@code endgameMillis}. With a time budget per move
+     * the solver gets at most half of it and the normal search the rest. 0 moves turns the solver off.
+     */
+    public void setEndgame(int endgameMoves, long endgameMillis) {
+        this.endgameMoves = endgameMoves;
+        this.endgameMillis = endgameMillis;
+    }
+
+    /**
+     * While the opponent thinks, search the position after the reply the last search expected. If the
+     * opponent plays it, the search just carries on for this move's time; otherwise it's dropped and only
+     * the transposition table it filled is kept. The ponder search runs on {@link SearchPool#getPonderPool()}
+     * and, with a time budget, stops on its own after one move's worth of time.
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+        if (!pondering) {
+            stopPondering();
+        }
+    }
+
     public PositionEvaluator getPositionEvaluator() {
         return evaluator.getPositionEvaluator();
     }
 
     @Override
     public Move getMove() {
-        List<Move> moves = board.getFirstNFittingMoves(evaluator.getN(), color);
-        System.out.println(moves);
+        long begin = System.currentTimeMillis();
+
+        if (openingBook != null) {
+            Move bookMove = openingBook.getMove(board, color);
+            if (bookMove != null) {
+                System.out.println("Book move: " + bookMove);
+                stopPondering();
+                return bookMove;
+            }
+        }
 
+        Move endgameMove = solveEndgame();
+        if (endgameMove != null) {
+            return endgameMove;
+        }
 
-        List<Pair<Move, Double>> moveScores = new Vector<>();
-        System.out.println("Found " + moves.size() + " moves as " + id);
+        List<Pair<Move, Double>> moveScores = null;
+        if (ponderSearch != null) {
+            System.out.println("Ponder hit");
+            moveScores = finishPondering(begin);
+        }
 
-        List<WorkerThread> threads = new Vector<>();
+        if (moveScores == null) {
+            List<Move> moves = board.getFirstNFittingMoves(evaluator.getN(), color);
+            System.out.println(moves);
 
-        List<OnedSpan> spans = Splitter.splitListInto(moves, min(Runtime.getRuntime().availableProcessors(), moves.size()));
-        for (OnedSpan span : spans) {
-            WorkerThread thread = new WorkerThread(moves.subList(span.getStart(), span.getEnd()), board.deepCopy(), this, depth);
-            thread.start();
-            threads.add(thread);
-        }
 
-        for (WorkerThread thread : threads) {
-            try {
-                thread.join();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+            System.out.println("Found " + moves.size() + " moves as " + id);
 
-            if (thread.getResult() == null) {
-                System.out.println("BADDD");
-                throw new NullPointerException();
+            evaluator.newSearch();
+            evaluator.resetNodeCount();
 
-            } else {
-                System.out.println(Collections.max(thread.getResult(), (moveAndScore, t1) -> {
-                    if (moveAndScore.getV() - t1.getV() < 0) {
-                        return -1;
-                    } else if (moveAndScore.getV() - t1.getV() > 0) {
-                        return 1;
-                    } else {
-                        return 0;
-                    }
-                }));
-                moveScores.addAll(thread.getResult());
+            if (millisPerMove > 0) {
+                evaluator.setDeadline(begin + millisPerMove);
+                try {
+                    moveScores = iterativeDeepening(board, moves);
+                } finally {
+                    evaluator.clearDeadline();
+                }
 
+                if (moveScores == null) {
+                    System.out.println("Not even depth 0 finished in " + millisPerMove + " ms, playing the first generated move");
+                    expectedReply = null;
+                    return moves.get(0);
+                }
+            } else {
+                moveScores = searchRoot(board, moves, Collections.emptyMap(), depth);
             }
         }
 
-        moveScores.sort((moveDoublePair, t1) -> moveDoublePair.getV() - t1.getV() < 0 ? 1 : moveDoublePair.getV() - t1.getV() == 0 ? 0 : -1
-        );
-
-
 
         System.out.println(moveScores);
+        System.out.println("Search: " + evaluator.getCutoffStatistics());
 
 
 
@@ -102,36 +168,206 @@ public class TwoPlayerAi extends Player {
         System.out.println("Parameters: " + evaluator.getPositionEvaluator().evaluatePosition(board, color, true));
 
         showChainOfDeduction(bestMove.getK());
+
+        List<Move> principalVariation = evaluator.getPrincipalVariation(bestMove.getK());
+        expectedReply = principalVariation.size() > 1 ? principalVariation.get(1) : null;
+
         return  bestMove.getK();
     }
 
-    private void showChainOfDeduction (Move move) {
-        Board position = evaluator.getFinalPosition(move);
-//        ui.updateValues(position, (color + depth + 1) % 2, moveCount + depth + 1);
-//        ui.update();
-        ui.overlay(position);
-//        new Scanner(System.in).nextLine();
-        ui.clearOverlay();
+    @Override
+    public void updateValues(Board board, int turn, int moveCount) {
+        super.updateValues(board, turn, moveCount);
+
+        if (turn == color) {
+            if (ponderSearch != null && board.getHash(color) != ponderPosition.getHash(color)) {
+                System.out.println("Ponder miss");
+                stopPondering();
+            }
+        } else if (pondering && ponderSearch == null && expectedReply != null) {
+            startPondering();
+        }
     }
 
-    public Evaluator getEvaluator() {
-        return evaluator;
+    private void startPondering () {
+        Board position = board.deepCopy();
+        Move reply = expectedReply;
+        expectedReply = null;
+
+        if (reply.getColor() != turn || !position.putOnBoard(reply)) {
+            return;
+        }
+
+        List<Move> moves = position.getFirstNFittingMoves(evaluator.getN(), color);
+        if (moves.isEmpty()) {
+            return;
+        }
+
+        evaluator.newSearch();
+        evaluator.resetNodeCount();
+
+        if (millisPerMove > 0) {
+            evaluator.setDeadline(System.currentTimeMillis() + millisPerMove);
+        }
+
+        ponderPosition = position;
+        ponderSearch = SearchPool.getPonderPool().submit(() -> millisPerMove > 0 ? iterativeDeepening(position, moves) : searchRoot(position, moves, Collections.emptyMap(), depth));
+    }
+
+    /**
+     * Lets the ponder search run until this move's deadline and returns its scores, or null if it got none.
+     * A search that already stopped on its own deadline is taken as it is.
+     */
+    private List<Pair<Move, Double>> finishPondering (long begin) {
+        evaluator.setDeadline(millisPerMove > 0 ? begin + millisPerMove : Long.MAX_VALUE);
+
+        try {
+            return ponderSearch.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            evaluator.clearDeadline();
+            ponderSearch = null;
+        }
+    }
+
+    private void stopPondering () {
+        if (ponderSearch == null) {
+            return;
+        }
+
+        evaluator.setDeadline(0);
+
+        try {
+            ponderSearch.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            evaluator.clearDeadline();
+            ponderSearch = null;
+        }
+    }
+
+    private Move solveEndgame () {
+        MoveList moves = new MoveList();
+        board.getAllFittingMoves(color, moves);
+        board.getAllFittingMoves(1 - color, moves);
+        int mobility = moves.size();
+        if (mobility >= endgameMoves) {
+            return null;
+        }
+
+        stopPondering();
+
+        long limit = millisPerMove > 0 ? Math.min(endgameMillis, millisPerMove / 2) : endgameMillis;
+        long begin = System.currentTimeMillis();
+        Pair<Move, Double> solution = endgameSolver.solve(board.deepCopy(), color, begin + limit);
+        long time = System.currentTimeMillis() - begin;
+
+        if (solution == null) {
+            System.out.println("Couldn't solve the endgame with " + mobility + " moves in " + time + " ms");
+            return null;
+        }
+
+        System.out.println("Solved the endgame with " + mobility + " moves in " + time + " ms (" + endgameSolver.getNodeCount() + " nodes): " + solution.getK() + ", final score " + solution.getV());
+        return solution.getK();
+    }
+
+    /**
+     * Deepens until {@code depth} or the evaluator's deadline, which may be moved while this runs. Returns
+     * null if not even the first iteration finished.
+     */
+    private List<Pair<Move, Double>> iterativeDeepening (Board position, List<Move> moves) {
+        List<Pair<Move, Double>> moveScores = searchRoot(position, moves, Collections.emptyMap(), 0);
+
+        for (int currentDepth = 1; moveScores != null && currentDepth <= depth && System.currentTimeMillis() < evaluator.getDeadline(); currentDepth++) {
+            List<Move> orderedMoves = new Vector<>();
+            Map<Move, Double> guesses = new HashMap<>();
+            for (Pair<Move, Double> moveScore : moveScores) {
+                orderedMoves.add(moveScore.getK());
+                guesses.put(moveScore.getK(), moveScore.getV());
+            }
+
+            List<Pair<Move, Double>> result = searchRoot(position, orderedMoves, guesses, currentDepth);
+
+            if (result == null) {
+                System.out.println("Ran out of time at depth " + currentDepth);
+                break;
+            }
+
+            moveScores = result;
+            System.out.println("Completed depth " + currentDepth + ", best " + moveScores.get(0).getK() + ", " + moveScores.get(0).getV());
+        }
+
+        return moveScores;
+    }
+
+    /**
+     * Scores every root move searched to {@code depth}, best first. Moves with a guess are searched with an
+     * aspiration window around it. Returns null if the search was aborted.
+     */
+    private List<Pair<Move, Double>> searchRoot (Board position, List<Move> moves, Map<Move, Double> guesses, int depth) {
+        List<Pair<Move, Double>> moveScores;
+
+        if (lazySmpThreads > 0) {
+            try {
+                moveScores = evaluator.searchLazySmp(position.deepCopy(), moves, guesses, depth, lazySmpThreads);
+            } catch (SearchAbortedException e) {
+                return null;
+            }
+        } else {
+            moveScores = splitRoot(position, moves, guesses, depth);
+            if (moveScores == null) {
+                return null;
+            }
+        }
+
+        moveScores.sort((moveDoublePair, t1) -> moveDoublePair.getV() - t1.getV() < 0 ? 1 : moveDoublePair.getV() - t1.getV() == 0 ? 0 : -1
+        );
+
+        return moveScores;
     }
 
-    List<Pair<Move, Double>> getMoveCallBack(List<Move> possibleMoves, Board board, int depth) {
-//        Map<double, Move> moveScores = new HashMap<>();
+    private List<Pair<Move, Double>> splitRoot (Board root, List<Move> moves, Map<Move, Double> guesses, int depth) {
         List<Pair<Move, Double>> moveScores = new Vector<>();
+        List<ForkJoinTask<Double>> tasks = new ArrayList<>();
+
+        for (Move move : moves) {
+            Board position = root.deepCopy();
+            position.putOnBoard(move);
+            double guess = guesses.getOrDefault(move, Double.NaN);
+            tasks.add(SearchPool.getCurrentPool().submit(() -> evaluator.evaluateMove(position, depth, move, guess)));
+        }
 
-        for (Move move : possibleMoves) {
-            board.putOnBoard(move);
-            double score = evaluator.evaluateMove(board, depth, move);
-            board.undo(0);
-//            moveScores.put(score, move);
-            moveScores.add(new Pair<>(move, score));
+        boolean aborted = false;
+
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                moveScores.add(new Pair<>(moves.get(i), tasks.get(i).join()));
+            } catch (SearchAbortedException e) {
+                aborted = true;
+            }
+        }
+
+        if (aborted) {
+            return null;
         }
 
         return moveScores;
+    }
 
+    private void showChainOfDeduction (Move move) {
+        Board position = evaluator.getFinalPosition(board, move);
+        System.out.println("Principal variation: " + evaluator.getPrincipalVariation(move));
+//        ui.updateValues(position, (color + depth + 1) % 2, moveCount + depth + 1);
+//        ui.update();
+        ui.overlay(position);
+//        new Scanner(System.in).nextLine();
+        ui.clearOverlay();
+    }
+
+    public Evaluator getEvaluator() {
+        return evaluator;
     }
 
     public Board getBoard () {
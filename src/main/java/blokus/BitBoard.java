@@ -0,0 +1,182 @@
+package blokus;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A set of board squares packed into {@code long} words.
+ *
+ * The grid is padded so that shifting by one column or one row never wraps a square onto
+ * a real square of another row: every row has one extra column on its left and there is
+ * an extra row above and below the board, so all eight neighbours of a square have valid
+ * indices. A square (x, y) lives at bit {@code (y + 1) * stride + x + 1}, where
+ * {@code stride = dimX + 1}.
+ */
+final class BitBoard implements Serializable {
+    private final int dimX;
+    private final int dimY;
+    private final int stride;
+    private final long[] words;
+
+    BitBoard (int dimX, int dimY) {
+        this.dimX = dimX;
+        this.dimY = dimY;
+        this.stride = dimX + 1;
+        this.words = new long[((dimY + 2) * stride + 1 + 63) >>> 6];
+    }
+
+    BitBoard (BitBoard other) {
+        this.dimX = other.dimX;
+        this.dimY = other.dimY;
+        this.stride = other.stride;
+        this.words = other.words.clone();
+    }
+
+    static BitBoard inside (int dimX, int dimY) {
+        BitBoard bitBoard = new BitBoard(dimX, dimY);
+
+        for (int y = 0; y < dimY; y++) {
+            for (int x = 0; x < dimX; x++) {
+                bitBoard.set(bitBoard.index(x, y));
+            }
+        }
+
+        return bitBoard;
+    }
+
+    int getStride () {
+        return stride;
+    }
+
+    int index (int x, int y) {
+        return (y + 1) * stride + x + 1;
+    }
+
+    int getX (int index) {
+        return (index - 1) % stride;
+    }
+
+    int getY (int index) {
+        return (index - 1) / stride - 1;
+    }
+
+    boolean isInside (int x, int y) {
+        return x >= 0 && x < dimX && y >= 0 && y < dimY;
+    }
+
+    boolean get (int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    void set (int index) {
+        words[index >>> 6] |= 1L << index;
+    }
+
+    void clear (int index) {
+        words[index >>> 6] &= ~(1L << index);
+    }
+
+    void flip (int index) {
+        words[index >>> 6] ^= 1L << index;
+    }
+
+    void clearAll () {
+        Arrays.fill(words, 0L);
+    }
+
+    void copyFrom (BitBoard other) {
+        System.arraycopy(other.words, 0, words, 0, words.length);
+    }
+
+    void or (BitBoard other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    void and (BitBoard other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= other.words[i];
+        }
+    }
+
+    void andNot (BitBoard other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= ~other.words[i];
+        }
+    }
+
+    /**
+     * ORs {@code source} shifted by {@code offset} bits into this board. A positive offset moves
+     * squares towards higher indices (right / down), a negative one towards lower indices.
+     */
+    void orShifted (BitBoard source, int offset) {
+        long[] src = source.words;
+        int length = words.length;
+
+        if (offset >= 0) {
+            int wordShift = offset >>> 6;
+            int bitShift = offset & 63;
+
+            for (int i = length - 1; i >= wordShift; i--) {
+                long value = src[i - wordShift] << bitShift;
+                if (bitShift != 0 && i - wordShift - 1 >= 0) {
+                    value |= src[i - wordShift - 1] >>> (64 - bitShift);
+                }
+                words[i] |= value;
+            }
+        } else {
+            int wordShift = (-offset) >>> 6;
+            int bitShift = (-offset) & 63;
+
+            for (int i = 0; i < length - wordShift; i++) {
+                long value = src[i + wordShift] >>> bitShift;
+                if (bitShift != 0 && i + wordShift + 1 < length) {
+                    value |= src[i + wordShift + 1] << (64 - bitShift);
+                }
+                words[i] |= value;
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the first set bit at or after {@code from}, or -1 if there is none.
+     */
+    int nextSetBit (int from) {
+        int wordIndex = from >>> 6;
+        if (wordIndex >= words.length) {
+            return -1;
+        }
+
+        long word = words[wordIndex] & (-1L << from);
+
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    int cardinality () {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+
+        return count;
+    }
+
+    boolean isEmpty () {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,170 @@
+package blokus;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps the pieces each color has placed as a 21-bit mask indexed by {@link PieceID#getOrdinal()}, so
+ * that placing, checking and undoing a piece are single bit operations. The squares each color has left
+ * are kept up to date as well.
+ *
+ * The piece lists are unmodifiable and in ordinal order. They are built when asked for and cached until
+ * the color places or takes back a piece.
+ */
+public class BitmaskPieceManager implements PieceManager, Serializable {
+    private static final PieceID[] PIECE_IDS = PieceID.values();
+    private static final int ALL_PIECES = (1 << PIECE_IDS.length) - 1;
+    private static final int INITIAL_HISTORY = 32;
+
+    private final int amountOfPlayers;
+
+    private final int[] onBoard;
+    private final int[] squaresLeft;
+
+    // Each entry is a color and a piece ordinal, color << 5 | ordinal
+    private int[] history;
+    private int historySize;
+
+    private transient List<List<PieceID>> piecesOnBoard;
+    private transient List<List<PieceID>> piecesNotOnBoard;
+
+    public BitmaskPieceManager (int amountOfPlayers) {
+        this.amountOfPlayers = amountOfPlayers;
+
+        int allSquares = 0;
+
+        for (PieceID pieceID : PIECE_IDS) {
+            allSquares += pieceID.getAmountOfSquares();
+        }
+
+        onBoard = new int[amountOfPlayers];
+        squaresLeft = new int[amountOfPlayers];
+        Arrays.fill(squaresLeft, allSquares);
+        history = new int[INITIAL_HISTORY];
+    }
+
+    private BitmaskPieceManager (BitmaskPieceManager other) {
+        amountOfPlayers = other.amountOfPlayers;
+        onBoard = other.onBoard.clone();
+        squaresLeft = other.squaresLeft.clone();
+        history = other.history.clone();
+        historySize = other.historySize;
+    }
+
+    @Override
+    public List<Piece> getCachedPieces(int color) {
+        return Piece.getPieces(color);
+    }
+
+    @Override
+    public List<PieceID> getPiecesOnBoard(int color) {
+        if (piecesOnBoard == null) {
+            piecesOnBoard = emptyCache();
+        }
+
+        if (piecesOnBoard.get(color) == null) {
+            piecesOnBoard.set(color, toList(onBoard[color]));
+        }
+
+        return piecesOnBoard.get(color);
+    }
+
+    @Override
+    public List<PieceID> getPiecesNotOnBoard(int color) {
+        if (piecesNotOnBoard == null) {
+            piecesNotOnBoard = emptyCache();
+        }
+
+        if (piecesNotOnBoard.get(color) == null) {
+            piecesNotOnBoard.set(color, toList(~onBoard[color] & ALL_PIECES));
+        }
+
+        return piecesNotOnBoard.get(color);
+    }
+
+    private List<List<PieceID>> emptyCache () {
+        return new ArrayList<>(Collections.nCopies(amountOfPlayers, null));
+    }
+
+    private static List<PieceID> toList (int mask) {
+        List<PieceID> list = new ArrayList<>(Integer.bitCount(mask));
+
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            list.add(PIECE_IDS[Integer.numberOfTrailingZeros(bits)]);
+        }
+
+        return Collections.unmodifiableList(list);
+    }
+
+    @Override
+    public Piece getCachedPiece(PieceID pieceID, int color) {
+        return Piece.get(pieceID, color);
+    }
+
+    @Override
+    public void placeOnBoard(PieceID pieceID, int color) {
+        if (isOnBoard(pieceID, color)) {
+            throw new RuntimeException("blokus.Piece " + pieceID + " is already on board!");
+        }
+
+        if (historySize == history.length) {
+            history = Arrays.copyOf(history, historySize * 2);
+        }
+
+        history[historySize++] = (color << 5) | pieceID.getOrdinal();
+        onBoard[color] |= 1 << pieceID.getOrdinal();
+        squaresLeft[color] -= pieceID.getAmountOfSquares();
+        invalidate(color);
+    }
+
+    @Override
+    public boolean isOnBoard (PieceID pieceID, int color) {
+        return (onBoard[color] & (1 << pieceID.getOrdinal())) != 0;
+    }
+
+    @Override
+    public boolean isColorOnBoard(int color) {
+        return onBoard[color] != 0;
+    }
+
+    @Override
+    public int getSquaresLeft(int color) {
+        return squaresLeft[color];
+    }
+
+    @Override
+    public int getAmountOfPlayers() {
+        return amountOfPlayers;
+    }
+
+    @Override
+    public void undo(int depth) {
+        for (int i = 0; i < depth; i++) {
+            int entry = history[--historySize];
+            int color = entry >>> 5;
+            PieceID pieceID = PIECE_IDS[entry & 0x1F];
+
+            onBoard[color] &= ~(1 << pieceID.getOrdinal());
+            squaresLeft[color] += pieceID.getAmountOfSquares();
+            invalidate(color);
+        }
+    }
+
+    private void invalidate (int color) {
+        if (piecesOnBoard != null) {
+            piecesOnBoard.set(color, null);
+        }
+
+        if (piecesNotOnBoard != null) {
+            piecesNotOnBoard.set(color, null);
+        }
+    }
+
+    @Override
+    public BitmaskPieceManager copy() {
+        return new BitmaskPieceManager(this);
+    }
+}
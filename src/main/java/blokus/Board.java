@@ -1,6 +1,5 @@
 package blokus;
 
-import misc.Pair;
 import misc.Saver;
 import uis.Texel;
 import uis.Texelizeable;
@@ -11,8 +10,19 @@ import java.util.*;
 
 
 public class Board implements Serializable, Texelizeable {
-    public static final Board DUO_BOARD = new Board(14, 14, new MyPieceManager(2));
-    public static final Board ORIGINAL_BOARD = new Board(20, 20, new MyPieceManager(4), true);
+    public static final Board DUO_BOARD = new Board(14, 14, new BitmaskPieceManager(2));
+    public static final Board ORIGINAL_BOARD = new Board(20, 20, new BitmaskPieceManager(4), true);
+
+    private static final PieceID[] PIECES = PieceID.values();
+
+    /**
+     * Biggest pieces first, then the ones with the most corners: the order {@link #getFirstNFittingMoves} tries them in.
+     */
+    private static final PieceID[] PIECES_BY_SIZE = Arrays.stream(PIECES)
+            .sorted(Comparator.comparingInt(PieceID::getAmountOfSquares).reversed()
+                    .thenComparing(Comparator.comparingInt(PieceID::getAmountOfCorners).reversed())
+                    .thenComparingInt(PieceID::getOrdinal))
+            .toArray(PieceID[]::new);
 
 
 
@@ -31,7 +41,26 @@ public class Board implements Serializable, Texelizeable {
     private PieceManager pieceManager;
     private boolean startFromCorners;
 
-    private List<int[][]> moveHistory = new Vector<>();
+    private BitBoard inside;
+    private BitBoard startCorners;
+    private BitBoard occupied;
+    private BitBoard[] colorSquares;
+    private BitBoard[] edges;
+    private BitBoard[] corners;
+
+    private int[] placedShapes;
+    private int[] placedX;
+    private int[] placedY;
+    private int[] placedColors;
+    private int placedCount;
+
+    private int[] undoDeltas;
+    private int[] undoDeltaStarts;
+    private int undoDeltaCount;
+
+    private long hash;
+
+    private BoardFeatures features;
 
     private Saver<Board> saver;
 
@@ -53,31 +82,141 @@ public class Board implements Serializable, Texelizeable {
         errorBoard = new int[dimY][dimX];
 
         initializeBoards();
+        initializeBitBoards();
 
     }
 
-    private void saveUndoState () {
-        int[][] oldBoard = new int[dimY][dimX];
+    public Board (Board other) {
+        dimX = other.dimX;
+        dimY = other.dimY;
+        amountOfPlayers = other.amountOfPlayers;
+
+        pieceManager = other.pieceManager.copy();
+        startFromCorners = other.startFromCorners;
+        saver = other.saver;
 
+        board = new int[dimY][];
+        errorBoard = new int[dimY][];
         for (int y = 0; y < dimY; y++) {
-            if (dimX >= 0) System.arraycopy(board[y], 0, oldBoard[y], 0, dimX);
+            board[y] = other.board[y].clone();
+            errorBoard[y] = other.errorBoard[y].clone();
         }
 
-        moveHistory.add(oldBoard);
+        inside = other.inside;
+        startCorners = other.startCorners;
+        occupied = new BitBoard(other.occupied);
+        colorSquares = copyOf(other.colorSquares);
+        edges = copyOf(other.edges);
+        corners = copyOf(other.corners);
+
+        placedShapes = other.placedShapes.clone();
+        placedX = other.placedX.clone();
+        placedY = other.placedY.clone();
+        placedColors = other.placedColors.clone();
+        placedCount = other.placedCount;
+
+        undoDeltas = other.undoDeltas.clone();
+        undoDeltaStarts = other.undoDeltaStarts.clone();
+        undoDeltaCount = other.undoDeltaCount;
+
+        hash = other.hash;
+        features = new BoardFeatures(other.features);
+    }
+
+    private static BitBoard[] copyOf (BitBoard[] bitBoards) {
+        BitBoard[] copy = new BitBoard[bitBoards.length];
+        for (int i = 0; i < bitBoards.length; i++) {
+            copy[i] = new BitBoard(bitBoards[i]);
+        }
 
+        return copy;
     }
 
     public void undo (int depth) {
-        if (moveHistory.size() - 1 - depth >= 0) {
-            int[][] oldBoard = moveHistory.get(moveHistory.size() - depth - 1);
-            moveHistory.remove(moveHistory.size() - 1 - depth);
-            board = oldBoard;
-            pieceManager.undo(depth + 1);
+        if (placedCount - 1 - depth >= 0) {
+            for (int i = 0; i <= depth; i++) {
+                undoLastPlacement();
+            }
 
         } else {
-            throw new RuntimeException("Can't undo this far! " + depth + " " + moveHistory.size());
+            throw new RuntimeException("Can't undo this far! " + depth + " " + placedCount);
+        }
+
+    }
+
+    private void undoLastPlacement () {
+        pieceManager.undo(1);
+
+        placedCount--;
+        Shape shape = ShapeTable.getShape(placedShapes[placedCount]);
+        int baseX = placedX[placedCount];
+        int baseY = placedY[placedCount];
+        int color = placedColors[placedCount];
+
+        int[] squaresX = shape.getSquaresX();
+        int[] squaresY = shape.getSquaresY();
+        for (int i = 0; i < squaresX.length; i++) {
+            int x = baseX + squaresX[i];
+            int y = baseY + squaresY[i];
+            int index = occupied.index(x, y);
+
+            board[y][x] = NO_PIECE;
+            occupied.clear(index);
+            colorSquares[color].clear(index);
+            hash ^= Zobrist.square(x, y, color);
+            features.removeSquare(x, y, color);
         }
+        hash ^= Zobrist.piece(shape.getPieceID(), color);
+
+        int start = undoDeltaStarts[placedCount];
+        for (int i = start; i < undoDeltaCount; i++) {
+            int delta = undoDeltas[i];
+            int mask = delta >>> 16;
+            BitBoard bitBoard = getMask(mask);
+            bitBoard.flip(delta & 0xFFFF);
 
+            if (mask >= amountOfPlayers) {
+                features.addCorners(mask - amountOfPlayers, bitBoard.get(delta & 0xFFFF) ? 1 : -1);
+            }
+        }
+        undoDeltaCount = start;
+    }
+
+    private void savePlacement (int baseX, int baseY, Shape shape, int color) {
+        placedShapes[placedCount] = shape.getIndex();
+        placedX[placedCount] = baseX;
+        placedY[placedCount] = baseY;
+        placedColors[placedCount] = color;
+        undoDeltaStarts[placedCount] = undoDeltaCount;
+        placedCount++;
+    }
+
+    private BitBoard getMask (int mask) {
+        return mask < amountOfPlayers ? edges[mask] : corners[mask - amountOfPlayers];
+    }
+
+    private void setMaskBit (int mask, int index) {
+        BitBoard bitBoard = getMask(mask);
+        if (!bitBoard.get(index)) {
+            bitBoard.set(index);
+            undoDeltas[undoDeltaCount++] = (mask << 16) | index;
+
+            if (mask >= amountOfPlayers) {
+                features.addCorners(mask - amountOfPlayers, 1);
+            }
+        }
+    }
+
+    private void clearMaskBit (int mask, int index) {
+        BitBoard bitBoard = getMask(mask);
+        if (bitBoard.get(index)) {
+            bitBoard.clear(index);
+            undoDeltas[undoDeltaCount++] = (mask << 16) | index;
+
+            if (mask >= amountOfPlayers) {
+                features.addCorners(mask - amountOfPlayers, -1);
+            }
+        }
     }
 
     private void initializeBoards () {
@@ -89,32 +228,196 @@ public class Board implements Serializable, Texelizeable {
         }
     }
 
+    private void initializeBitBoards () {
+        inside = BitBoard.inside(dimX, dimY);
+        startCorners = new BitBoard(dimX, dimY);
+        occupied = new BitBoard(dimX, dimY);
+
+        colorSquares = new BitBoard[amountOfPlayers];
+        edges = new BitBoard[amountOfPlayers];
+        corners = new BitBoard[amountOfPlayers];
+        features = new BoardFeatures(amountOfPlayers);
+
+        placedShapes = new int[Piece.amountOfUniquePieces() * amountOfPlayers];
+        placedX = new int[placedShapes.length];
+        placedY = new int[placedShapes.length];
+        placedColors = new int[placedShapes.length];
+        undoDeltaStarts = new int[placedShapes.length];
+
+        for (int color = 0; color < amountOfPlayers; color++) {
+            colorSquares[color] = new BitBoard(dimX, dimY);
+            edges[color] = new BitBoard(dimX, dimY);
+            corners[color] = new BitBoard(dimX, dimY);
+        }
+
+        for (int y = 0; y < dimY; y++) {
+            for (int x = 0; x < dimX; x++) {
+                if (isCorner(x, y)) {
+                    startCorners.set(startCorners.index(x, y));
+                }
+            }
+        }
+
+        int maxDeltasPerPlacement = 0;
+        for (Shape shape : ShapeTable.getShapes()) {
+            int deltas = shape.getSquaresX().length * amountOfPlayers + 2 * shape.getEdgesX().length + shape.getCornersX().length;
+            maxDeltasPerPlacement = Math.max(maxDeltasPerPlacement, deltas);
+        }
+        undoDeltas = new int[placedShapes.length * (maxDeltasPerPlacement + startCorners.cardinality())];
+
+        refreshBitBoardsFromBoard();
+    }
+
+    private void refreshBitBoardsFromBoard () {
+        occupied.clearAll();
+        features.clear();
+        for (int color = 0; color < amountOfPlayers; color++) {
+            colorSquares[color].clearAll();
+        }
+
+        for (int y = 0; y < dimY; y++) {
+            for (int x = 0; x < dimX; x++) {
+                int color = board[y][x];
+                if (color != NO_PIECE) {
+                    int index = occupied.index(x, y);
+                    occupied.set(index);
+                    colorSquares[color].set(index);
+                    features.addSquare(x, y, color);
+                }
+            }
+        }
+
+        refreshMasks();
+    }
+
+    private void refreshMasks () {
+        int stride = inside.getStride();
+
+        for (int color = 0; color < amountOfPlayers; color++) {
+            BitBoard own = colorSquares[color];
+            BitBoard edge = edges[color];
+            BitBoard corner = corners[color];
+
+            edge.clearAll();
+            edge.orShifted(own, 1);
+            edge.orShifted(own, -1);
+            edge.orShifted(own, stride);
+            edge.orShifted(own, -stride);
+            edge.and(inside);
+            edge.andNot(own);
+
+            corner.clearAll();
+            if (isColorOnBoard(color)) {
+                corner.orShifted(own, stride + 1);
+                corner.orShifted(own, stride - 1);
+                corner.orShifted(own, -stride + 1);
+                corner.orShifted(own, -stride - 1);
+                corner.and(inside);
+                corner.andNot(edge);
+            } else {
+                corner.copyFrom(startCorners);
+            }
+            corner.andNot(occupied);
+            features.setCorners(color, corner.cardinality());
+        }
+    }
+
+    private void updateMasksAfterPut (int baseX, int baseY, Shape shape, int color, boolean firstPiece) {
+        int edgeMask = color;
+        int cornerMask = amountOfPlayers + color;
+        BitBoard edge = edges[color];
+
+        if (firstPiece) {
+            BitBoard corner = corners[color];
+            for (int index = corner.nextSetBit(0); index != -1; index = corner.nextSetBit(index + 1)) {
+                clearMaskBit(cornerMask, index);
+            }
+        }
+
+        int[] squaresX = shape.getSquaresX();
+        int[] squaresY = shape.getSquaresY();
+        for (int i = 0; i < squaresX.length; i++) {
+            int index = inside.index(baseX + squaresX[i], baseY + squaresY[i]);
+            for (int otherColor = 0; otherColor < amountOfPlayers; otherColor++) {
+                clearMaskBit(amountOfPlayers + otherColor, index);
+            }
+        }
+
+        int[] edgesX = shape.getEdgesX();
+        int[] edgesY = shape.getEdgesY();
+        for (int i = 0; i < edgesX.length; i++) {
+            int x = baseX + edgesX[i];
+            int y = baseY + edgesY[i];
+
+            if (inside.isInside(x, y)) {
+                int index = inside.index(x, y);
+                setMaskBit(edgeMask, index);
+                clearMaskBit(cornerMask, index);
+            }
+        }
+
+        int[] cornersX = shape.getCornersX();
+        int[] cornersY = shape.getCornersY();
+        for (int i = 0; i < cornersX.length; i++) {
+            int x = baseX + cornersX[i];
+            int y = baseY + cornersY[i];
+
+            if (inside.isInside(x, y)) {
+                int index = inside.index(x, y);
+                if (!occupied.get(index) && !edge.get(index)) {
+                    setMaskBit(cornerMask, index);
+                }
+            }
+        }
+    }
+
     private boolean putOnBoard(int baseX, int baseY, PieceID pieceID, int color, Orientation orientation, boolean flip) {
         if (pieceManager.isOnBoard(pieceID, color)) {
             throw new RuntimeException("blokus.Piece " + pieceID + "already on board");
         }
 
-        Piece piece = pieceManager.getCachedPiece(pieceID, color).rotate(orientation, flip);
+        return putOnBoard(baseX, baseY, ShapeTable.getShape(pieceID, orientation, flip), color);
+    }
 
-        if (fits(baseX, baseY, pieceID, color, orientation, flip)) {
-            dummyPut(baseX, baseY, piece);
-            addToPiecesOnBoard(piece);
-            piece.placeOnBoard(baseX, baseY);
+    private boolean putOnBoard (int baseX, int baseY, Shape shape, int color) {
+        if (fits(baseX, baseY, shape, color)) {
+            place(baseX, baseY, shape, color);
             return true;
         } else {
-            errorPut(baseX, baseY, piece);
+            errorPut(baseX, baseY, shape, color);
             return false;
         }
     }
 
+    private void place (int baseX, int baseY, Shape shape, int color) {
+        boolean firstPiece = !isColorOnBoard(color);
+        dummyPut(baseX, baseY, shape, color);
+        addToPiecesOnBoard(shape.getPieceID(), color);
+        updateMasksAfterPut(baseX, baseY, shape, color, firstPiece);
+    }
+
     public boolean putOnBoard (Move move) {
         return putOnBoard(move.getX(), move.getY(), move.getPieceID(), move.getColor(), move.getOrientation(), move.isFlip());
     }
 
+    public boolean putOnBoard (int move) {
+        Shape shape = PackedMove.getShape(move);
+        int color = PackedMove.getColor(move);
+
+        if (pieceManager.isOnBoard(shape.getPieceID(), color)) {
+            throw new RuntimeException("blokus.Piece " + shape.getPieceID() + "already on board");
+        }
+
+        return putOnBoard(PackedMove.getX(move), PackedMove.getY(move), shape, color);
+    }
+
     private int safeOffset(int baseX, int baseY, int offsetX, int offsetY) {
-        try {
-            return board[baseY + offsetY][baseX + offsetX];
-        } catch (ArrayIndexOutOfBoundsException e) {
+        int x = baseX + offsetX;
+        int y = baseY + offsetY;
+
+        if (inside.isInside(x, y)) {
+            return board[y][x];
+        } else {
             return EDGE;
         }
     }
@@ -127,81 +430,53 @@ public class Board implements Serializable, Texelizeable {
         if (pieceManager.isOnBoard(pieceID, color) && noDupe) {
             return false;
         } else {
-            Piece piece = pieceManager.getCachedPiece(pieceID, color).rotate(orientation, flip);
-            return fits(baseX, baseY, piece);
+            return fits(baseX, baseY, ShapeTable.getShape(pieceID, orientation, flip), color);
         }
 
 
     }
 
-    private boolean fits (int baseX, int baseY, Piece piece) {
-
-        char[][] mesh = piece.getMesh();
-
-        boolean isConnected = false;
-        boolean fits = true;
-        boolean touchesCorner = false;
-
-
-        for (int y = 0; y < piece.getDimY(); y++) {
-            for (int x = 0; x < piece.getDimX(); x++) {
-                char current = mesh[y][x];
-                if (current == Piece.TRANSPARENT) {
-                    continue;
-                }
-
-                int absX = baseX + x;
-                int absY = baseY + y;
-
-                if (safeOffset(absX, absY, 0, 0) != NO_PIECE) {
-                    return false;
-                }
-
-                if (!touchesCorner && isCorner(absX, absY)) {
-
-                    touchesCorner = true;
-                }
+    private boolean fits (int baseX, int baseY, Shape shape, int color) {
+        return placementCorner(baseX, baseY, shape, color) != -1;
+    }
 
-                int topRight = safeOffset(absX, absY, +1, -1);
-                int topLeft = safeOffset(absX, absY, -1, -1);
-                int bottomRight = safeOffset(absX, absY, +1, +1);
-                int bottomLeft = safeOffset(absX, absY, -1, +1);
+    /**
+     * Returns the lowest corner square the placement covers, or -1 if the placement is illegal.
+     * Reporting the lowest one lets move generation keep each placement only once, even though
+     * it can be reached from every corner it covers.
+     */
+    private int placementCorner (int baseX, int baseY, Shape shape, int color) {
+        if (baseX < 0 || baseY < 0 || baseX + shape.getDimX() > dimX || baseY + shape.getDimY() > dimY) {
+            return -1;
+        }
 
+        BitBoard edge = edges[color];
+        BitBoard corner = corners[color];
+        int[] squaresX = shape.getSquaresX();
+        int[] squaresY = shape.getSquaresY();
+        int firstCorner = Integer.MAX_VALUE;
 
-                if (!isConnected &&
-                       (topRight == piece.getColor() ||
-                        topLeft == piece.getColor() ||
-                        bottomRight == piece.getColor() ||
-                        bottomLeft == piece.getColor())
-                    ) {
-                    isConnected = true;
-                }
+        for (int i = 0; i < squaresX.length; i++) {
+            int index = inside.index(baseX + squaresX[i], baseY + squaresY[i]);
 
-                if (!adjacentsFree(absX, absY, piece.getColor())) {
-                    return false;
-                }
+            if (occupied.get(index) || edge.get(index)) {
+                return -1;
             }
-        }
 
-        if (!isColorOnBoard(piece.getColor()) && touchesCorner) {
-            isConnected = true;
+            if (index < firstCorner && corner.get(index)) {
+                firstCorner = index;
+            }
         }
 
-
-        return isConnected;
-
+        return firstCorner == Integer.MAX_VALUE ? -1 : firstCorner;
     }
 
     public boolean adjacentsFree (int x, int y, int color) {
-        int top     = safeOffset(x, y, 0, -1);
-        int bottom  = safeOffset(x, y, 0, +1);
-        int left    = safeOffset(x, y, -1, 0);
-        int right   = safeOffset(x, y, +1, 0);
+        if (!inside.isInside(x, y)) {
+            return true;
+        }
 
-        return top != color &&
-                bottom != color &&
-                left != color &&
-                right != color;
+        return !edges[color].get(inside.index(x, y));
     }
 
 
@@ -215,63 +490,140 @@ public class Board implements Serializable, Texelizeable {
         }
     }
 
-    private void addToPiecesOnBoard (Piece piece) {
-        pieceManager.placeOnBoard(piece.getID(), piece.getColor());
+    public boolean fits (int move) {
+        Shape shape = PackedMove.getShape(move);
+        int color = PackedMove.getColor(move);
+
+        return !pieceManager.isOnBoard(shape.getPieceID(), color) && fits(PackedMove.getX(move), PackedMove.getY(move), shape, color);
+    }
+
+    private void addToPiecesOnBoard (PieceID pieceID, int color) {
+        pieceManager.placeOnBoard(pieceID, color);
+        hash ^= Zobrist.piece(pieceID, color);
     }
 
     private boolean isColorOnBoard (int color) {
         return pieceManager.isColorOnBoard(color);
     }
 
-    private void dummyPut (int baseX, int baseY, Piece piece) {
-        char[][] mesh = piece.getMesh();
-        saveUndoState();
+    private void dummyPut (int baseX, int baseY, Shape shape, int color) {
+        int[] squaresX = shape.getSquaresX();
+        int[] squaresY = shape.getSquaresY();
+        savePlacement(baseX, baseY, shape, color);
 
-        for (int y = 0; y < mesh.length; y++) {
-            for (int x = 0; x < mesh[y].length; x++) {
-                char current = mesh[y][x];
+        for (int i = 0; i < squaresX.length; i++) {
+            int x = baseX + squaresX[i];
+            int y = baseY + squaresY[i];
+            int index = occupied.index(x, y);
 
-                switch (current) {
-                    case Piece.TRANSPARENT:
-                        break;
-                    case Piece.OPAQUE:
-                        board[baseY + y][baseX + x] = piece.getColor();
-                        break;
-                    default:
-                        throw new RuntimeException("Invalid piece " + piece + ", " + current);
-                }
+            board[y][x] = color;
+            occupied.set(index);
+            colorSquares[color].set(index);
+            hash ^= Zobrist.square(x, y, color);
+            features.addSquare(x, y, color);
+        }
+    }
 
+    private void errorPut (int baseX, int baseY, Shape shape, int color) {
+        for (Position square : shape.getSquares()) {
+            int x = baseX + square.x;
+            int y = baseY + square.y;
+
+            if (inside.isInside(x, y)) {
+                errorBoard[y][x] = color;
             }
         }
     }
 
-    private void errorPut (int baseX, int baseY, Piece piece) {
-        char[][] mesh = piece.getMesh();
+    public boolean hasMoves (int color) {
+        BitBoard corner = corners[color];
+        boolean firstMove = !isColorOnBoard(color);
+
+        for (int index = corner.nextSetBit(0); index != -1; index = corner.nextSetBit(index + 1)) {
+            int x = corner.getX(index);
+            int y = corner.getY(index);
+
+            for (PieceID pieceID : PIECES) {
+                if (pieceManager.isOnBoard(pieceID, color)) {
+                    continue;
+                }
+
+                List<Shape> shapes = ShapeTable.getShapes(pieceID);
 
-        for (int y = 0; y < mesh.length; y++) {
-            for (int x = 0; x < mesh[y].length; x++) {
-                char current = mesh[y][x];
+                for (int i = 0; i < shapes.size(); i++) {
+                    Shape shape = shapes.get(i);
+                    int[] anchorsX = firstMove ? shape.getSquaresX() : shape.getAttachX();
+                    int[] anchorsY = firstMove ? shape.getSquaresY() : shape.getAttachY();
 
-                switch (current) {
-                    case Piece.OPAQUE:
-                        try {
-                            errorBoard[baseY + y][baseX + x] = piece.getColor();
-                        } catch (ArrayIndexOutOfBoundsException e) {
-//                            e.printStackTrace();
+                    for (int j = 0; j < anchorsX.length; j++) {
+                        if (placementCorner(x - anchorsX[j], y - anchorsY[j], shape, color) != -1) {
+                            return true;
                         }
-                        break;
-                    case Piece.TRANSPARENT:
-                        break;
-                    default:
-                        throw new RuntimeException("Invalid piece " + piece);
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Puts a uniformly random legal move of {@code color} on the board without building any move
+     * objects, for fast playouts. Returns false if the color has no moves. Undo it like any other move.
+     */
+    public boolean playRandomMove (int color, Random random) {
+        BitBoard corner = corners[color];
+        boolean firstMove = !isColorOnBoard(color);
+
+        int count = 0;
+        Shape chosenShape = null;
+        int chosenX = 0;
+        int chosenY = 0;
+
+        for (int index = corner.nextSetBit(0); index != -1; index = corner.nextSetBit(index + 1)) {
+            int x = corner.getX(index);
+            int y = corner.getY(index);
+
+            for (PieceID pieceID : PIECES) {
+                if (pieceManager.isOnBoard(pieceID, color)) {
+                    continue;
                 }
 
+                List<Shape> shapes = ShapeTable.getShapes(pieceID);
+
+                for (int i = 0; i < shapes.size(); i++) {
+                    Shape shape = shapes.get(i);
+                    int[] anchorsX = firstMove ? shape.getSquaresX() : shape.getAttachX();
+                    int[] anchorsY = firstMove ? shape.getSquaresY() : shape.getAttachY();
+
+                    for (int j = 0; j < anchorsX.length; j++) {
+                        int baseX = x - anchorsX[j];
+                        int baseY = y - anchorsY[j];
+
+                        // Reservoir sampling keeps every placement equally likely without storing them
+                        if (placementCorner(baseX, baseY, shape, color) == index && random.nextInt(++count) == 0) {
+                            chosenShape = shape;
+                            chosenX = baseX;
+                            chosenY = baseY;
+                        }
+                    }
+                }
             }
         }
+
+        if (chosenShape == null) {
+            return false;
+        }
+
+        place(chosenX, chosenY, chosenShape, color);
+        return true;
     }
 
-    public boolean hasMoves (int color) {
-        return getAllFittingMoves(color).size() != 0;
+    /**
+     * Squares of the pieces {@code color} hasn't placed yet; the lowest count wins the game.
+     */
+    public int getSquaresLeft (int color) {
+        return pieceManager.getSquaresLeft(color);
     }
 
     public boolean canPlay () {
@@ -377,54 +729,55 @@ public class Board implements Serializable, Texelizeable {
         throw new RuntimeException(new NotImplementedError());
     }
 
-    private List<PieceID> getPiecesNotOnBoard (int color) {
-        return pieceManager.getPiecesNotOnBoard(color);
-    }
-
     public List<Move> getAllFittingMoves (int color) {
-        return getAllFittingMoves(color, getPiecesNotOnBoard(color));
+        MoveList moves = new MoveList();
+        getAllFittingMoves(color, moves);
+        return moves.toMoves();
     }
 
-    private List<Move> getAllFittingMoves (int color, List<PieceID> pieces) {
-        List<Move> moves = new ArrayList<>();
-        for (Position boardPosition : getEligibleCorners(color)) {
-            moves.addAll(getAllFittingMoves(color, boardPosition.x, boardPosition.y, pieces));
-        }
-
+    /**
+     * Adds every legal move of {@code color} to {@code moves} as {@link PackedMove}s.
+     */
+    public void getAllFittingMoves (int color, MoveList moves) {
+        BitBoard corner = corners[color];
 
-        return moves;
+        for (int index = corner.nextSetBit(0); index != -1; index = corner.nextSetBit(index + 1)) {
+            for (PieceID pieceID : PIECES) {
+                if (!pieceManager.isOnBoard(pieceID, color)) {
+                    addAllFittingMoves(moves, color, index, pieceID);
+                }
+            }
+        }
     }
 
-    private List<Move> getAllFittingMoves (int color, int x, int y, List<PieceID> pieces) {
-        List<Move> moves = new ArrayList<>();
+    private void addAllFittingMoves (MoveList moves, int color, PieceID pieceID) {
+        BitBoard corner = corners[color];
 
-        for (PieceID pieceID : pieces) {
-            moves.addAll(getAllFittingMoves(color, x, y, pieceID));
+        for (int index = corner.nextSetBit(0); index != -1; index = corner.nextSetBit(index + 1)) {
+            addAllFittingMoves(moves, color, index, pieceID);
         }
-
-        return moves;
     }
 
+    private void addAllFittingMoves (MoveList moves, int color, int cornerIndex, PieceID pieceID) {
+        int x = inside.getX(cornerIndex);
+        int y = inside.getY(cornerIndex);
+        boolean firstMove = !isColorOnBoard(color);
+        List<Shape> shapes = ShapeTable.getShapes(pieceID);
 
-    private List<Move> getAllFittingMoves (int color, int x, int y, PieceID pieceID) {
-        List<Move> moves = new ArrayList<>();
-        Piece piece = pieceManager.getCachedPiece(pieceID, color);
-
-//        if (pieceID == PieceID.fromStandardNotation("L4")) {
-
+        for (int i = 0; i < shapes.size(); i++) {
+            Shape shape = shapes.get(i);
+            int[] anchorsX = firstMove ? shape.getSquaresX() : shape.getAttachX();
+            int[] anchorsY = firstMove ? shape.getSquaresY() : shape.getAttachY();
 
-        for (Pair<Orientation, Boolean> orientationAndFlip: pieceID.getAllOrientations()) {
-            for (Position position : piece.getSquares()) {
-                int baseX = x - position.x;
-                int baseY = y - position.y;
+            for (int j = 0; j < anchorsX.length; j++) {
+                int baseX = x - anchorsX[j];
+                int baseY = y - anchorsY[j];
 
-                if (fits(baseX, baseY, piece.rotate(orientationAndFlip.getK(), orientationAndFlip.getV()))) {
-                    moves.add(new Move(baseX, baseY, pieceID, color, orientationAndFlip.getK(), orientationAndFlip.getV()));
+                if (placementCorner(baseX, baseY, shape, color) == cornerIndex) {
+                    moves.add(PackedMove.of(shape, baseX, baseY, color));
                 }
             }
         }
-
-        return moves;
     }
 
     private boolean isCorner (int x, int y) {
@@ -437,56 +790,107 @@ public class Board implements Serializable, Texelizeable {
     }
 
     private boolean isEligibleCorner (int color, int x, int y) {
-        if (!isColorOnBoard(color) && isCorner(x, y) && isEmpty(x, y)) {
-            return true;
-        }
+        return inside.isInside(x, y) && corners[color].get(inside.index(x, y));
+    }
 
-        int topRight = safeOffset(x, y, 1, -1);
-        int bottomRight = safeOffset(x, y, 1, 1);
-        int topLeft = safeOffset(x, y, -1, -1);
-        int bottomLeft = safeOffset(x, y, -1, 1);
+    public boolean isEmpty(int x, int y) {
+        return inside.isInside(x, y) && !occupied.get(inside.index(x, y));
+    }
 
-        int left = safeOffset(x, y, -1 ,0);
-        int right = safeOffset(x, y, 1 ,0);
-        int top = safeOffset(x, y, 0 ,-1);
-        int bottom = safeOffset(x, y, 0 ,1);
+    public List<Position> getEligibleCorners(int color) {
+        List<Position> eligibleCorners = new ArrayList<>();
+        BitBoard corner = corners[color];
 
-        boolean edges = left != color && right != color && top != color && bottom != color;
-        boolean corners = topRight == color || bottomRight == color || topLeft == color || bottomLeft == color;
+        for (int index = corner.nextSetBit(0); index != -1; index = corner.nextSetBit(index + 1)) {
+            eligibleCorners.add(new Position(corner.getX(index), corner.getY(index)));
+        }
 
-        return edges && corners;
+        return eligibleCorners;
     }
 
-    public boolean isEmpty(int x, int y) {
-        try{
-            return board[y][x] == NO_PIECE;
-        } catch (ArrayIndexOutOfBoundsException e) {
-            return false;
-        }
-    }
+    /**
+     * The number of squares reachable from each of {@link #getEligibleCorners(int)}, in the same order, moving
+     * orthogonally through squares the color could still cover: empty and not next to its own squares. Every
+     * region is flood filled once with shifted bitboards and shared by all the corners inside it.
+     */
+    public int[] getCornerRegionSizes (int color) {
+        BitBoard corner = corners[color];
+        int[] sizes = new int[corner.cardinality()];
 
-    public List<Position> getEligibleCorners(int color) {
-        List<Position> corners = new ArrayList<>();
+        BitBoard free = new BitBoard(inside);
+        free.andNot(occupied);
+        free.andNot(edges[color]);
 
-        for (int y = 0; y < dimY; y++) {
-            for (int x = 0; x < dimX; x++) {
+        BitBoard region = new BitBoard(dimX, dimY);
+        BitBoard grown = new BitBoard(dimX, dimY);
+        BitBoard filled = new BitBoard(dimX, dimY);
+        int stride = inside.getStride();
+
+        int i = 0;
+        for (int index = corner.nextSetBit(0); index != -1; index = corner.nextSetBit(index + 1), i++) {
+            if (filled.get(index)) {
+                continue;
+            }
+
+            region.clearAll();
+            region.set(index);
+            region.and(free);
+
+            int size = region.cardinality();
+            while (size != 0) {
+                grown.copyFrom(region);
+                grown.orShifted(region, 1);
+                grown.orShifted(region, -1);
+                grown.orShifted(region, stride);
+                grown.orShifted(region, -stride);
+                grown.and(free);
+
+                int grownSize = grown.cardinality();
+                if (grownSize == size) {
+                    break;
+                }
+
+                region.copyFrom(grown);
+                size = grownSize;
+            }
 
-                if (isEligibleCorner(color, x, y)) {
-                    corners.add(new Position(x, y));
+            int j = i;
+            for (int other = index; other != -1; other = corner.nextSetBit(other + 1), j++) {
+                if (other == index || region.get(other)) {
+                    sizes[j] = size;
+                    filled.set(other);
                 }
             }
         }
 
-        return corners;
+        return sizes;
     }
 
     public int amountOfFreeCorners (int color) {
-        return getEligibleCorners(color).size();
+        return features.getCorners(color);
+    }
+
+    /**
+     * Running totals of the squares and corners of each color, updated with every placement and undo.
+     */
+    public BoardFeatures getFeatures () {
+        return features;
     }
 
 
     public Board deepCopy () {
-        return saver.deepCopy(this);
+        return new Board(this);
+    }
+
+    /**
+     * Zobrist hash of the squares on the board and the pieces each color has left.
+     */
+    public long getHash () {
+        return hash;
+    }
+
+    public long getHash (int toMove) {
+        return hash ^ Zobrist.sideToMove(toMove);
     }
 
     public int getDimX() {
@@ -506,35 +910,23 @@ public class Board implements Serializable, Texelizeable {
     }
 
     public List<Move> getFirstNFittingMoves (int n, int color) {
-        List<PieceID> pieceIDs = getPiecesNotOnBoard(color);
-
-        pieceIDs.sort((pieceID, t1) -> {
-            int result = t1.getAmountOfSquares() - pieceID.getAmountOfSquares();
-
-            if (result > 0) {
-                return 1;
-            } else if (result < 0) {
-                return -1;
-            } else {
-                int corners = t1.getAmountOfCorners() - pieceID.getAmountOfCorners();
-                return Integer.compare(corners, 0);
-            }
-        });
+        MoveList moves = new MoveList();
+        getFirstNFittingMoves(n, color, moves);
+        return moves.toMoves();
+    }
 
-        List<Move> moves = new ArrayList<>();
-        int endIndex = 0;
-        while (moves.size() < n) {
-            PieceID current;
-            try {
-                current = pieceIDs.get(endIndex);
+    /**
+     * Fills {@code moves} with the legal moves of {@code color}'s biggest pieces, piece by piece until
+     * there are at least {@code n} of them.
+     */
+    public void getFirstNFittingMoves (int n, int color, MoveList moves) {
+        moves.clear();
 
-            } catch (IndexOutOfBoundsException e) {
-                break;
+        for (int i = 0; i < PIECES_BY_SIZE.length && moves.size() < n; i++) {
+            if (!pieceManager.isOnBoard(PIECES_BY_SIZE[i], color)) {
+                addAllFittingMoves(moves, color, PIECES_BY_SIZE[i]);
             }
-            moves.addAll(getAllFittingMoves(color, Collections.singletonList(current)));
-            endIndex++;
         }
-        return moves;
 //        if (purge) {
 //
 //
@@ -0,0 +1,94 @@
+package blokus;
+
+import java.io.Serializable;
+
+/**
+ * Per-color totals that position evaluators need at every leaf, kept up to date by the {@link Board} as
+ * pieces are placed and taken back so that reading them costs nothing: the number of squares, the sums
+ * of their coordinates and of the squared coordinates, and the number of free corners.
+ */
+public final class BoardFeatures implements Serializable {
+    private final int[] squares;
+    private final int[] sumX;
+    private final int[] sumY;
+    private final int[] sumXSquared;
+    private final int[] sumYSquared;
+    private final int[] corners;
+
+    BoardFeatures (int amountOfPlayers) {
+        squares = new int[amountOfPlayers];
+        sumX = new int[amountOfPlayers];
+        sumY = new int[amountOfPlayers];
+        sumXSquared = new int[amountOfPlayers];
+        sumYSquared = new int[amountOfPlayers];
+        corners = new int[amountOfPlayers];
+    }
+
+    BoardFeatures (BoardFeatures other) {
+        squares = other.squares.clone();
+        sumX = other.sumX.clone();
+        sumY = other.sumY.clone();
+        sumXSquared = other.sumXSquared.clone();
+        sumYSquared = other.sumYSquared.clone();
+        corners = other.corners.clone();
+    }
+
+    void addSquare (int x, int y, int color) {
+        squares[color]++;
+        sumX[color] += x;
+        sumY[color] += y;
+        sumXSquared[color] += x * x;
+        sumYSquared[color] += y * y;
+    }
+
+    void removeSquare (int x, int y, int color) {
+        squares[color]--;
+        sumX[color] -= x;
+        sumY[color] -= y;
+        sumXSquared[color] -= x * x;
+        sumYSquared[color] -= y * y;
+    }
+
+    void addCorners (int color, int amount) {
+        corners[color] += amount;
+    }
+
+    void setCorners (int color, int amount) {
+        corners[color] = amount;
+    }
+
+    void clear () {
+        for (int color = 0; color < squares.length; color++) {
+            squares[color] = 0;
+            sumX[color] = 0;
+            sumY[color] = 0;
+            sumXSquared[color] = 0;
+            sumYSquared[color] = 0;
+            corners[color] = 0;
+        }
+    }
+
+    public int getSquares (int color) {
+        return squares[color];
+    }
+
+    public int getSumX (int color) {
+        return sumX[color];
+    }
+
+    public int getSumY (int color) {
+        return sumY[color];
+    }
+
+    public int getSumXSquared (int color) {
+        return sumXSquared[color];
+    }
+
+    public int getSumYSquared (int color) {
+        return sumYSquared[color];
+    }
+
+    public int getCorners (int color) {
+        return corners[color];
+    }
+}
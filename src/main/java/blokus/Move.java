@@ -1,7 +1,6 @@
 package blokus;
 
 import java.util.Arrays;
-import java.util.Objects;
 import java.util.regex.Pattern;
 
 public class Move implements java.io.Serializable {
@@ -109,7 +108,11 @@ public class Move implements java.io.Serializable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, y, pieceID, color, orientation, flip);
+        int result = 31 * x + y;
+        result = 31 * result + pieceID.ordinal();
+        result = 31 * result + color;
+        result = 31 * result + orientation.ordinal();
+        return 2 * result + (flip ? 1 : 0);
     }
     
 }
@@ -0,0 +1,98 @@
+package blokus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growable list of {@link PackedMove}s backed by an {@code int} array, so that generating the moves of
+ * a node allocates one array instead of an object per move.
+ */
+public final class MoveList {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList () {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList (int capacity) {
+        moves = new int[Math.max(capacity, 1)];
+    }
+
+    public void add (int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+
+        moves[size++] = move;
+    }
+
+    public void addAll (MoveList other) {
+        if (size + other.size > moves.length) {
+            moves = Arrays.copyOf(moves, Math.max(size + other.size, size * 2));
+        }
+
+        System.arraycopy(other.moves, 0, moves, size, other.size);
+        size += other.size;
+    }
+
+    public int get (int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        }
+
+        return moves[index];
+    }
+
+    public void set (int index, int move) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        }
+
+        moves[index] = move;
+    }
+
+    public int size () {
+        return size;
+    }
+
+    public boolean isEmpty () {
+        return size == 0;
+    }
+
+    public void clear () {
+        size = 0;
+    }
+
+    /**
+     * Moves {@code move} to the front, keeping the order of the rest. Returns false if it isn't in the list.
+     */
+    public boolean moveToFront (int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public List<Move> toMoves () {
+        List<Move> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(PackedMove.toMove(moves[i]));
+        }
+
+        return list;
+    }
+
+    @Override
+    public String toString () {
+        return toMoves().toString();
+    }
+}
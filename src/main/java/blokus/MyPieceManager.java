@@ -7,7 +7,6 @@ import java.util.Stack;
 import java.util.Vector;
 
 public class MyPieceManager implements PieceManager, Serializable {
-    private List< List<Piece> > cachedPieces = new Vector<>();
     private List< List<PieceID> > piecesOnBoard = new Vector<>();
     private List< List<PieceID> > piecesNotOnBoard = new Vector<>();
 
@@ -19,16 +18,7 @@ public class MyPieceManager implements PieceManager, Serializable {
         for (int i = 0; i < amountOfPlayers; i++) {
             piecesNotOnBoard.add(new ArrayList<>());
             piecesOnBoard.add(new ArrayList<>());
-            cachedPieces.add(new ArrayList<>());
-
             List<PieceID> pieceIDs = Piece.getAllPieces(i);
-            for (PieceID pieceID : pieceIDs) {
-                try {
-                    cachedPieces.get(i).add(pieceID.getOrdinal(), (new Piece(pieceID, i)));
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            }
 
             piecesNotOnBoard.get(i).addAll(pieceIDs);
         }
@@ -36,9 +26,19 @@ public class MyPieceManager implements PieceManager, Serializable {
         this.amountOfPlayers = amountOfPlayers;
     }
 
+    private MyPieceManager (MyPieceManager other) {
+        for (int i = 0; i < other.amountOfPlayers; i++) {
+            piecesOnBoard.add(new ArrayList<>(other.piecesOnBoard.get(i)));
+            piecesNotOnBoard.add(new ArrayList<>(other.piecesNotOnBoard.get(i)));
+        }
+
+        colorHistory.addAll(other.colorHistory);
+        amountOfPlayers = other.amountOfPlayers;
+    }
+
     @Override
     public List<Piece> getCachedPieces(int color) {
-        return cachedPieces.get(color);
+        return Piece.getPieces(color);
     }
 
     @Override
@@ -53,11 +53,7 @@ public class MyPieceManager implements PieceManager, Serializable {
 
     @Override
     public Piece getCachedPiece(PieceID pieceID, int color) {
-        try {
-            return cachedPieces.get(color).get(pieceID.getOrdinal());
-        } catch (IndexOutOfBoundsException e) {
-            throw new RuntimeException("Invalid color " + color + " or pieceID " + pieceID + "!");
-        }
+        return Piece.get(pieceID, color);
     }
 
     @Override
@@ -91,6 +87,11 @@ public class MyPieceManager implements PieceManager, Serializable {
         return !piecesOnBoard.get(color).isEmpty();
     }
 
+    @Override
+    public int getSquaresLeft(int color) {
+        return piecesNotOnBoard.get(color).stream().mapToInt(PieceID::getAmountOfSquares).sum();
+    }
+
     @Override
     public int getAmountOfPlayers() {
         return amountOfPlayers;
@@ -106,5 +107,10 @@ public class MyPieceManager implements PieceManager, Serializable {
         }
     }
 
+    @Override
+    public MyPieceManager copy() {
+        return new MyPieceManager(this);
+    }
+
 
 }
@@ -0,0 +1,64 @@
+package blokus;
+
+/**
+ * Moves packed into a single {@code int}, for the search, which would otherwise allocate millions of
+ * {@link Move}s. From the lowest byte up: y, x, the {@link ShapeTable} index of the shape (which gives
+ * the piece, orientation and flip) and the color. The lower three bytes are all a transposition table
+ * needs to store, since it knows the color to move.
+ */
+public final class PackedMove {
+    public static final int NONE = -1;
+
+    private static final int COLOR_SHIFT = 24;
+    private static final int CODE_MASK = (1 << COLOR_SHIFT) - 1;
+
+    private PackedMove () {}
+
+    public static int of (Shape shape, int x, int y, int color) {
+        return (color << COLOR_SHIFT) | (shape.getIndex() << 16) | (x << 8) | y;
+    }
+
+    public static int of (Move move) {
+        return of(ShapeTable.getShape(move.getPieceID(), move.getOrientation(), move.isFlip()), move.getX(), move.getY(), move.getColor());
+    }
+
+    public static Move toMove (int move) {
+        Shape shape = getShape(move);
+        return new Move(getX(move), getY(move), shape.getPieceID(), getColor(move), shape.getOrientation(), shape.isFlip());
+    }
+
+    /**
+     * The move without its color, in the lower 24 bits.
+     */
+    public static int getCode (int move) {
+        return move & CODE_MASK;
+    }
+
+    public static int withColor (int code, int color) {
+        return (code & CODE_MASK) | (color << COLOR_SHIFT);
+    }
+
+    public static Shape getShape (int move) {
+        return ShapeTable.getShape(getShapeIndex(move));
+    }
+
+    public static int getShapeIndex (int move) {
+        return (move >>> 16) & 0xFF;
+    }
+
+    public static int getX (int move) {
+        return (move >>> 8) & 0xFF;
+    }
+
+    public static int getY (int move) {
+        return move & 0xFF;
+    }
+
+    public static int getColor (int move) {
+        return move >>> COLOR_SHIFT;
+    }
+
+    public static String toString (int move) {
+        return move == NONE ? "none" : toMove(move).toString();
+    }
+}
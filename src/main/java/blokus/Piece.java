@@ -1,149 +1,87 @@
 package blokus;
 
 import misc.Pair;
-import org.apache.commons.lang3.StringUtils;
 import uis.Texel;
 import uis.Texelizeable;
 import uis.fancyttyui.ColorPallet;
 import uis.fancyttyui.DefaultPallet;
 import uis.fancyttyui.Terminal;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Vector;
-import java.util.stream.Collectors;
 
+/**
+ * One piece of one color in one orientation. Pieces never change: the unrotated pieces of each color are
+ * built once and shared by every board, and where a piece lies is recorded by the {@link Board} it was
+ * placed on, not by the piece.
+ */
 public class Piece implements java.io.Serializable, Texelizeable {
-    private static final List<String> paths = Arrays.asList(
-            
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece1.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece2.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece3.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece4.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece5.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece6.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece7.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece8.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece9.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece10.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece11.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece12.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece13.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece14.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece15.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece16.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece17.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece18.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece19.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece20.txt",
-            "/home/kaappo/git/blokusnew/src/main/resources/pieces/piece21.txt"
-    );
-
-
     public static final char OPAQUE = '#';
     public static final char TRANSPARENT = '.';
     public static final char CORNER = '$';
 
-    private char[][] mesh;
-    private int color;
+    private static final String RESOURCE_DIRECTORY = "/pieces/";
+
+    /**
+     * The shape of every piece, read from the classpath once and shared by every piece object. Indexed
+     * by {@link PieceID#getOrdinal()}.
+     */
+    private static final char[][][] MESHES = loadMeshes();
+
+    private static final List<List<Piece>> PIECES_BY_COLOR = new ArrayList<>();
 
-    private int posX = -1;
-    private int posY = -1;
-    private boolean onBoard;
+    private final char[][] mesh;
+    private final int color;
     private final PieceID id;
     private final Orientation orientation;
     private final boolean flipped;
-    private int amountOfSquares;
-    private List<Position> squares = new Vector<>();
-    private int dimX;
-    private int dimY;
-
-    public int getPosX() {
-        return posX;
-    }
-
-    public int getPosY() {
-        return posY;
-    }
+    private final List<Position> squares;
+    private final int dimX;
+    private final int dimY;
 
+    private static char[][][] loadMeshes () {
+        PieceID[] pieceIDs = PieceID.values();
+        char[][][] meshes = new char[pieceIDs.length][][];
 
-    public void placeOnBoard (int posX, int posY) {
-        if (onBoard) {
-            throw new RuntimeException("blokus.Piece " + toString() + " is already on board at coordnates " + this.posX + ", " + this.posY + "!");
+        for (PieceID pieceID : pieceIDs) {
+            meshes[pieceID.getOrdinal()] = parseMesh(pieceID, readResource(RESOURCE_DIRECTORY + "piece" + (pieceID.getOrdinal() + 1) + ".txt"));
         }
 
-        onBoard = true;
-        this.posX = posX;
-        this.posY = posY;
-    }
-
-    public PieceID getID () {
-        return id;
-    }
-
-    public Orientation getOrientation() {
-        return orientation;
-    }
-
-    public boolean isFlipped() {
-        return flipped;
-    }
-
-    public char[][] getMesh() {
-        return mesh;
-    }
-
-
-    private static boolean isValid (int color) {
-        return color > -1;
+        return meshes;
     }
 
-    private void initializeMesh () {
-        mesh = new char[dimY][dimX];
-
-        for (int y = 0; y < mesh.length; y++) {
-            for (int x = 0; x < mesh[y].length; x++) {
-                mesh[y][x] = TRANSPARENT;
-            }
-        }
-    }
-
-    public List<Position> getSquares() {
-        return squares;
-    }
-
-    private static String readFile (String path) throws IOException {
-            return StringUtils.join(Files.lines(Paths.get(path), StandardCharsets.UTF_8).collect(Collectors.toList()), '\n');
-    }
-
-    public Piece (PieceID pieceID, int color) {
-        if (isValid(color)) {
-            this.color = color;
-        } else {
-            throw new RuntimeException("Invalid color " + color + "!");
+    private static List<String> readResource (String name) {
+        InputStream in = Piece.class.getResourceAsStream(name);
+        if (in == null) {
+            throw new RuntimeException("Resource " + name + " not found on the classpath!");
         }
 
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<String> lines = new ArrayList<>();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
 
-        String text;
-        try {
-            text = readFile(paths.get(pieceID.getOrdinal()));
+            return lines;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+    }
 
-        String[] lines = text.split("\n");
-        dimY = lines.length;
-        dimX = lines[0].length();
-
-        initializeMesh();
+    private static char[][] parseMesh (PieceID pieceID, List<String> lines) {
+        char[][] mesh = new char[lines.size()][lines.get(0).length()];
 
-        for (int y = 0; y < dimY; y++) {
-            for (int x = 0; x < dimX; x++) {
-                char current = lines[y].charAt(x);
+        for (int y = 0; y < mesh.length; y++) {
+            for (int x = 0; x < mesh[y].length; x++) {
+                char current = lines.get(y).charAt(x);
                 switch (current) {
                     case TRANSPARENT:
                         mesh[y][x] = TRANSPARENT;
@@ -162,97 +100,136 @@ public class Piece implements java.io.Serializable, Texelizeable {
             }
         }
 
-        id = pieceID;
-        orientation = Orientation.UP;
-        flipped = false;
-        refreshSquares();
-
-        if (amountOfSquares != pieceID.getAmountOfSquares()) {
-            throw new RuntimeException("Wrong amount of sqares in resource. Found " + amountOfSquares + ", expecting " + pieceID.getAmountOfCorners());
-        }
+        return mesh;
     }
 
-    private void refreshSquares () {
-        squares = new Vector<>();
-
-        int counter = 0;
+    public Piece (PieceID pieceID, int color) {
+        this(MESHES[pieceID.getOrdinal()], color, pieceID, Orientation.UP, false);
 
-        for (int x = 0; x < dimX; x++) {
-            for (int y = 0; y < dimY; y++) {
-                if (mesh[y][x] == OPAQUE) {
-                    counter++;
-                    squares.add(new Position(x, y));
-                }
-            }
+        if (getAmountOfSquares() != pieceID.getAmountOfSquares()) {
+            throw new RuntimeException("Wrong amount of sqares in resource. Found " + getAmountOfSquares() + ", expecting " + pieceID.getAmountOfSquares());
         }
-
-        amountOfSquares = counter;
-    }
-
-    public int getAmountOfSquares () {
-        return amountOfSquares;
     }
 
-    private Piece (char[][] mesh, int color, PieceID pieceID, Orientation orientation, boolean flipped, boolean isOnBoard, int amountOfSquares) {
+    private Piece (char[][] mesh, int color, PieceID pieceID, Orientation orientation, boolean flipped) {
         if (isValid(color)) {
             this.color = color;
         } else {
             throw new RuntimeException("Invalid color " + color + "!");
         }
 
-        dimY = mesh.length;
-        dimX = mesh[0].length;
-
-        initializeMesh();
-
-        this.mesh = mesh;
-        refreshSquares();
+        this.mesh = alignTopLeft(mesh);
+        dimY = this.mesh.length;
+        dimX = this.mesh[0].length;
+        squares = Collections.unmodifiableList(findSquares(this.mesh));
 
         id = pieceID;
         this.orientation = orientation;
         this.flipped = flipped;
-        onBoard = isOnBoard;
-        this.amountOfSquares = amountOfSquares;
     }
 
-    private void moveLeft () {
-        for (int y = 0; y < dimY; y++) {
-            if (mesh[y][0] == OPAQUE) {
-                return;
+    /**
+     * All pieces of {@code color} in ordinal order, built on first use and shared by every piece manager.
+     */
+    public static List<Piece> getPieces (int color) {
+        synchronized (PIECES_BY_COLOR) {
+            while (PIECES_BY_COLOR.size() <= color) {
+                List<Piece> pieces = new ArrayList<>();
+                for (PieceID pieceID : PieceID.values()) {
+                    pieces.add(new Piece(pieceID, PIECES_BY_COLOR.size()));
+                }
+
+                PIECES_BY_COLOR.add(Collections.unmodifiableList(pieces));
             }
+
+            return PIECES_BY_COLOR.get(color);
         }
+    }
+
+    /**
+     * The shared, unrotated {@code pieceID} of {@code color}.
+     */
+    public static Piece get (PieceID pieceID, int color) {
+        return getPieces(color).get(pieceID.getOrdinal());
+    }
 
+    public PieceID getID () {
+        return id;
+    }
+
+    public Orientation getOrientation() {
+        return orientation;
+    }
+
+    public boolean isFlipped() {
+        return flipped;
+    }
+
+    /**
+     * A copy of the piece's mesh; the piece itself never changes.
+     */
+    public char[][] getMesh() {
+        char[][] copy = new char[dimY][];
         for (int y = 0; y < dimY; y++) {
-            for (int x = 0; x < dimX; x++) {
-                if (x + 1 >= dimX) {
-                    mesh[y][x] = TRANSPARENT;
-                } else {
-                    mesh[y][x] = mesh[y][x + 1];
+            copy[y] = mesh[y].clone();
+        }
+
+        return copy;
+    }
+
+
+    private static boolean isValid (int color) {
+        return color > -1;
+    }
+
+    public List<Position> getSquares() {
+        return squares;
+    }
+
+    private static List<Position> findSquares (char[][] mesh) {
+        List<Position> squares = new ArrayList<>();
+
+        for (int x = 0; x < mesh[0].length; x++) {
+            for (int y = 0; y < mesh.length; y++) {
+                if (mesh[y][x] == OPAQUE) {
+                    squares.add(new Position(x, y));
                 }
             }
         }
 
-        moveLeft();
+        return squares;
     }
 
-    private void moveUp () {
-        for (int x = 0; x < 5; x++) {
-            if (mesh[0][x] == OPAQUE) {
-                return;
+    public int getAmountOfSquares () {
+        return squares.size();
+    }
+
+    /**
+     * Returns a copy of {@code mesh} with the squares moved to the top left corner, keeping the dimensions.
+     */
+    private static char[][] alignTopLeft (char[][] mesh) {
+        int dimY = mesh.length;
+        int dimX = mesh[0].length;
+        int left = dimX;
+        int top = dimY;
+
+        for (int y = 0; y < dimY; y++) {
+            for (int x = 0; x < dimX; x++) {
+                if (mesh[y][x] == OPAQUE) {
+                    left = Math.min(left, x);
+                    top = Math.min(top, y);
+                }
             }
         }
 
-        for (int y = 0; y < 5; y++) {
-            for (int x = 0; x < 5; x++) {
-                if (y + 1 >= dimY) {
-                    mesh[y][x] = TRANSPARENT;
-                } else {
-                    mesh[y][x] = mesh[y + 1][x];
-                }
+        char[][] aligned = new char[dimY][dimX];
+        for (int y = 0; y < dimY; y++) {
+            for (int x = 0; x < dimX; x++) {
+                aligned[y][x] = y + top < dimY && x + left < dimX ? mesh[y + top][x + left] : TRANSPARENT;
             }
         }
 
-        moveUp();
+        return aligned;
     }
 
     public Piece rotate (Orientation orientation, boolean flip) {
@@ -311,12 +288,8 @@ public class Piece implements java.io.Serializable, Texelizeable {
         } else {
             afterFlip = newList;
         }
-        Piece piece = new Piece(afterFlip, color, getID(), orientation, flip, isOnBoard(), getAmountOfSquares());
-        piece.moveLeft();
-        piece.moveUp();
-
-        return piece;
 
+        return new Piece(afterFlip, color, getID(), orientation, flip);
     }
 
     public List<Piece> getAllOrientations () {
@@ -384,14 +357,6 @@ public class Piece implements java.io.Serializable, Texelizeable {
         return builder.toString();
     }
 
-    public boolean isOnBoard() {
-        return onBoard;
-    }
-
-    public void setOnBoard(boolean set) {
-//        this.onBoard = set;
-    }
-
     public static int amountOfUniquePieces () {
         return 21;
     }
@@ -10,7 +10,9 @@ public interface PieceManager {
     void placeOnBoard(PieceID pieceID, int color);
     boolean isOnBoard(PieceID pieceID, int color);
     boolean isColorOnBoard(int color);
+    int getSquaresLeft(int color);
     int getAmountOfPlayers();
     void undo(int depth);
+    PieceManager copy();
 
 }
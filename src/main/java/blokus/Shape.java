@@ -0,0 +1,208 @@
+package blokus;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One distinct orientation of a piece. Shapes are built once by {@link ShapeTable} and never change.
+ *
+ * All offsets are relative to the top left corner of the shape's bounding box. Besides the squares
+ * themselves a shape knows the squares it can attach with (squares with a diagonal neighbour that is
+ * neither covered nor edge-adjacent), the halo of edge-adjacent squares it forbids for its own color
+ * and the diagonal squares it opens up as new corners.
+ */
+public final class Shape implements Serializable {
+    private final int index;
+    private final PieceID pieceID;
+    private final Orientation orientation;
+    private final boolean flip;
+
+    private final int dimX;
+    private final int dimY;
+
+    private final int[] squaresX;
+    private final int[] squaresY;
+    private final int[] attachX;
+    private final int[] attachY;
+    private final int[] edgesX;
+    private final int[] edgesY;
+    private final int[] cornersX;
+    private final int[] cornersY;
+
+    private final List<Position> squares;
+
+    Shape (int index, PieceID pieceID, Orientation orientation, boolean flip, char[][] mesh) {
+        this.index = index;
+        this.pieceID = pieceID;
+        this.orientation = orientation;
+        this.flip = flip;
+
+        dimY = mesh.length;
+        dimX = mesh[0].length;
+
+        boolean[][] covered = new boolean[dimY + 2][dimX + 2];
+        List<Position> squareList = new ArrayList<>();
+
+        for (int y = 0; y < dimY; y++) {
+            for (int x = 0; x < dimX; x++) {
+                if (mesh[y][x] == Piece.OPAQUE) {
+                    covered[y + 1][x + 1] = true;
+                    squareList.add(new Position(x, y));
+                }
+            }
+        }
+
+        boolean[][] edge = new boolean[dimY + 2][dimX + 2];
+        List<Position> edgeList = new ArrayList<>();
+        List<Position> cornerList = new ArrayList<>();
+
+        for (int y = -1; y <= dimY; y++) {
+            for (int x = -1; x <= dimX; x++) {
+                if (!covered[y + 1][x + 1] && touches(covered, x, y, false)) {
+                    edge[y + 1][x + 1] = true;
+                    edgeList.add(new Position(x, y));
+                }
+            }
+        }
+
+        for (int y = -1; y <= dimY; y++) {
+            for (int x = -1; x <= dimX; x++) {
+                if (!covered[y + 1][x + 1] && !edge[y + 1][x + 1] && touches(covered, x, y, true)) {
+                    cornerList.add(new Position(x, y));
+                }
+            }
+        }
+
+        List<Position> attachList = new ArrayList<>();
+        for (Position square : squareList) {
+            for (int dy = -1; dy <= 1; dy += 2) {
+                for (int dx = -1; dx <= 1; dx += 2) {
+                    int x = square.x + dx + 1;
+                    int y = square.y + dy + 1;
+
+                    if (!covered[y][x] && !edge[y][x] && !attachList.contains(square)) {
+                        attachList.add(square);
+                    }
+                }
+            }
+        }
+
+        squares = Collections.unmodifiableList(squareList);
+        squaresX = xs(squareList);
+        squaresY = ys(squareList);
+        attachX = xs(attachList);
+        attachY = ys(attachList);
+        edgesX = xs(edgeList);
+        edgesY = ys(edgeList);
+        cornersX = xs(cornerList);
+        cornersY = ys(cornerList);
+    }
+
+    private static boolean touches (boolean[][] covered, int x, int y, boolean diagonally) {
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                boolean isDiagonal = dx != 0 && dy != 0;
+                boolean isEdge = (dx == 0) != (dy == 0);
+
+                if ((diagonally ? isDiagonal : isEdge) && isCovered(covered, x + dx, y + dy)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isCovered (boolean[][] covered, int x, int y) {
+        return y + 1 >= 0 && y + 1 < covered.length && x + 1 >= 0 && x + 1 < covered[0].length && covered[y + 1][x + 1];
+    }
+
+    private static int[] xs (List<Position> positions) {
+        return positions.stream().mapToInt(position -> position.x).toArray();
+    }
+
+    private static int[] ys (List<Position> positions) {
+        return positions.stream().mapToInt(position -> position.y).toArray();
+    }
+
+    boolean hasSameSquares (Shape other) {
+        if (dimX != other.dimX || dimY != other.dimY || squaresX.length != other.squaresX.length) {
+            return false;
+        }
+
+        for (int i = 0; i < squaresX.length; i++) {
+            if (squaresX[i] != other.squaresX[i] || squaresY[i] != other.squaresY[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public int getIndex () {
+        return index;
+    }
+
+    public PieceID getPieceID () {
+        return pieceID;
+    }
+
+    public Orientation getOrientation () {
+        return orientation;
+    }
+
+    public boolean isFlip () {
+        return flip;
+    }
+
+    public int getDimX () {
+        return dimX;
+    }
+
+    public int getDimY () {
+        return dimY;
+    }
+
+    public List<Position> getSquares () {
+        return squares;
+    }
+
+    int[] getSquaresX () {
+        return squaresX;
+    }
+
+    int[] getSquaresY () {
+        return squaresY;
+    }
+
+    int[] getAttachX () {
+        return attachX;
+    }
+
+    int[] getAttachY () {
+        return attachY;
+    }
+
+    int[] getEdgesX () {
+        return edgesX;
+    }
+
+    int[] getEdgesY () {
+        return edgesY;
+    }
+
+    int[] getCornersX () {
+        return cornersX;
+    }
+
+    int[] getCornersY () {
+        return cornersY;
+    }
+
+    @Override
+    public String toString () {
+        return pieceID + " " + orientation + " " + flip;
+    }
+}
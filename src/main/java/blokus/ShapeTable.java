@@ -0,0 +1,83 @@
+package blokus;
+
+import misc.Pair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Every distinct orientation of every piece (91 in total), built once at startup so that move
+ * generation only has to look shapes up instead of rotating pieces.
+ */
+public final class ShapeTable {
+    private static final List<Shape> SHAPES;
+    private static final List<List<Shape>> SHAPES_BY_PIECE;
+    private static final Shape[][] SHAPES_BY_ORIENTATION;
+
+    static {
+        List<Shape> shapes = new ArrayList<>();
+        List<List<Shape>> shapesByPiece = new ArrayList<>();
+        Shape[][] shapesByOrientation = new Shape[PieceID.values().length][Orientation.values().length * 2];
+
+        for (PieceID pieceID : PieceID.values()) {
+            Piece piece = Piece.get(pieceID, 0);
+            List<Shape> pieceShapes = new ArrayList<>();
+
+            for (Pair<Orientation, Boolean> orientationAndFlip : pieceID.getAllOrientations()) {
+                Shape shape = new Shape(shapes.size(), pieceID, orientationAndFlip.getK(), orientationAndFlip.getV(), piece.rotate(orientationAndFlip.getK(), orientationAndFlip.getV()).getMesh());
+                shapes.add(shape);
+                pieceShapes.add(shape);
+            }
+
+            for (Orientation orientation : Orientation.values()) {
+                for (boolean flip : new boolean[]{false, true}) {
+                    Shape rotated = new Shape(-1, pieceID, orientation, flip, piece.rotate(orientation, flip).getMesh());
+
+                    Shape match = pieceShapes.stream()
+                            .filter(rotated::hasSameSquares)
+                            .findFirst()
+                            .orElseThrow(() -> new RuntimeException("Orientation group of " + pieceID + " doesn't cover " + orientation + " " + flip + "!"));
+
+                    shapesByOrientation[pieceID.getOrdinal()][slot(orientation, flip)] = match;
+                }
+            }
+
+            shapesByPiece.add(Collections.unmodifiableList(pieceShapes));
+        }
+
+        SHAPES = Collections.unmodifiableList(shapes);
+        SHAPES_BY_PIECE = Collections.unmodifiableList(shapesByPiece);
+        SHAPES_BY_ORIENTATION = shapesByOrientation;
+    }
+
+    private ShapeTable () {}
+
+    private static int slot (Orientation orientation, boolean flip) {
+        return orientation.ordinal() * 2 + (flip ? 1 : 0);
+    }
+
+    public static List<Shape> getShapes () {
+        return SHAPES;
+    }
+
+    public static List<Shape> getShapes (PieceID pieceID) {
+        return SHAPES_BY_PIECE.get(pieceID.getOrdinal());
+    }
+
+    public static Shape getShape (int index) {
+        return SHAPES.get(index);
+    }
+
+    /**
+     * Returns the distinct shape the given orientation produces. Orientations that are left out of
+     * the piece's {@link OrientationGroup} map onto the shape with the same squares.
+     */
+    public static Shape getShape (PieceID pieceID, Orientation orientation, boolean flip) {
+        return SHAPES_BY_ORIENTATION[pieceID.getOrdinal()][slot(orientation, flip)];
+    }
+
+    public static int size () {
+        return SHAPES.size();
+    }
+}
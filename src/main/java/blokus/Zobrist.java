@@ -0,0 +1,34 @@
+package blokus;
+
+/**
+ * Zobrist keys for board positions. Keys are derived from a fixed seed so that hashes stay the same
+ * between runs and can be written to disk.
+ */
+public final class Zobrist {
+    private static final long SEED = 0x5DEECE66DL;
+
+    private static final int SQUARE = 1;
+    private static final int PIECE = 2;
+    private static final int SIDE = 3;
+
+    private Zobrist () {}
+
+    public static long square (int x, int y, int color) {
+        return mix(SQUARE, x, y, color);
+    }
+
+    public static long piece (PieceID pieceID, int color) {
+        return mix(PIECE, pieceID.getOrdinal(), 0, color);
+    }
+
+    public static long sideToMove (int color) {
+        return mix(SIDE, 0, 0, color);
+    }
+
+    private static long mix (int kind, int a, int b, int c) {
+        long z = SEED + (((long) kind << 48) | ((long) (a & 0xFFFF) << 32) | ((long) (b & 0xFFFF) << 16) | (c & 0xFFFF)) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
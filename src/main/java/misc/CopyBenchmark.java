@@ -0,0 +1,41 @@
+package misc;
+
+import blokus.Board;
+
+public class CopyBenchmark {
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int ROUNDS = 2000;
+
+    public static void main(String[] args) {
+        benchmark("Duo", Board.DUO_BOARD.deepCopy(), 12);
+        benchmark("Original", Board.ORIGINAL_BOARD.deepCopy(), 24);
+    }
+
+    private static void benchmark (String name, Board board, int moves) {
+        RandomMoves.play(board, moves);
+
+        Saver<Board> saver = new Saver<>();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            saver.deepCopy(board);
+            board.deepCopy();
+        }
+
+        long serializationBegin = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            saver.deepCopy(board);
+        }
+        long serializationTime = System.nanoTime() - serializationBegin;
+
+        long copyBegin = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            board.deepCopy();
+        }
+        long copyTime = System.nanoTime() - copyBegin;
+
+        System.out.println(name + " board after " + moves + " moves:");
+        System.out.println("\tSerialization round trip: " + serializationTime / ROUNDS / 1000.0 + " microseconds per copy");
+        System.out.println("\tCopy constructor:         " + copyTime / ROUNDS / 1000.0 + " microseconds per copy");
+        System.out.println("\tSpeedup:                  " + (double) serializationTime / copyTime + "x");
+    }
+}
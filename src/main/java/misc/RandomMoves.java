@@ -0,0 +1,31 @@
+package misc;
+
+import blokus.Board;
+import blokus.Move;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible positions for the benchmarks: the same seed always plays the same moves.
+ */
+public class RandomMoves {
+    private RandomMoves () {}
+
+    /**
+     * Plays {@code moves} random legal moves on {@code board}, the colors taking turns. A color without
+     * moves passes.
+     */
+    public static void play (Board board, int moves) {
+        Random random = new Random(0);
+
+        for (int i = 0; i < moves; i++) {
+            int color = i % board.getAmountOfPlayers();
+            List<Move> fittingMoves = board.getAllFittingMoves(color);
+
+            if (!fittingMoves.isEmpty()) {
+                board.putOnBoard(fittingMoves.get(random.nextInt(fittingMoves.size())));
+            }
+        }
+    }
+}
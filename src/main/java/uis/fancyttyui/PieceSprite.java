@@ -21,7 +21,7 @@ public class PieceSprite extends Sprite {
     }
 
     PieceSprite (PieceID pieceID, int color, Orientation orientation, boolean flip, int scaleX, int scaleY, ColorPallet pallet, char transparent) {
-        super(new Piece(pieceID, color).rotate(orientation, flip).texelize(pallet, scaleX, scaleY), transparent, true);
+        super(Piece.get(pieceID, color).rotate(orientation, flip).texelize(pallet, scaleX, scaleY), transparent, true);
 
         this.scaleX = scaleX;
         this.scaleY = scaleY;
@@ -102,7 +102,7 @@ public class PieceSprite extends Sprite {
     }
 
     protected void refreshData () {
-        Piece piece = new Piece(pieceID, color).rotate(orientation, flip);
+        Piece piece = Piece.get(pieceID, color).rotate(orientation, flip);
         Texel[][] mesh = piece.texelize(pallet, scaleX, scaleY);
         super.mesh = mesh;
         dimY = mesh.length;